@@ -0,0 +1,267 @@
+package io.github.successhawk.java7.numericliterals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs named fields of a few bits each into a long, the way bit masks written as binary literals are used by
+ * hand, for example a 1 bit flag, a 3 bit enum and a 12 bit counter:
+ *
+ * <pre>
+ * BitFieldLayout layout = new BitFieldLayout(new String[] { "flag", "kind", "count" }, new int[] { 1, 3, 12 });
+ * BitField kind = layout.field("kind");   // mask 0b1110, shift 1
+ * long record = kind.set(0L, 5);
+ * </pre>
+ * The first field takes the lowest bits.  The masks and shifts are computed once, so getting or setting a field
+ * is an and, a shift and an or, on a long, an element of a long[] or a long in a (direct, off-heap) ByteBuffer.
+ * Millions of records can therefore be kept as a long[] instead of as objects, and {@link BitField#count} and
+ * {@link BitField#filter} scan them without unpacking.
+ *
+ * Immutable and thread safe.
+ * @author nwh02
+ *
+ */
+public final class BitFieldLayout {
+
+	private final List<BitField> fields;
+	private final Map<String, BitField> byName;
+	private final int bits;
+
+	/**
+	 * @param names of the fields, lowest bits first.
+	 * @param widths in bits of the fields, from 1 to 64, together at most 64.
+	 */
+	public BitFieldLayout(String[] names, int[] widths) {
+		if (names.length != widths.length) {
+			throw new IllegalArgumentException("names (" + names.length + ") and widths (" + widths.length
+					+ ") must have the same length.");
+		}
+		List<BitField> fields = new ArrayList<>(names.length);
+		Map<String, BitField> byName = new HashMap<>();
+		int shift = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (widths[i] < 1 || widths[i] > 64 - shift) {
+				throw new IllegalArgumentException("field (" + names[i] + ") of " + widths[i] + " bits does not fit in the "
+						+ (64 - shift) + " bits left.");
+			}
+			BitField field = new BitField(names[i], shift, widths[i]);
+			if (byName.put(names[i], field) != null) {
+				throw new IllegalArgumentException("field (" + names[i] + ") is defined more than once.");
+			}
+			fields.add(field);
+			shift += widths[i];
+		}
+		this.fields = Collections.unmodifiableList(fields);
+		this.byName = byName;
+		this.bits = shift;
+	}
+
+	/**
+	 * @param name
+	 * @return the field.
+	 * @throws IllegalArgumentException if there is no such field.
+	 */
+	public BitField field(String name) {
+		BitField field = byName.get(name);
+		if (field == null) {
+			throw new IllegalArgumentException("field (" + name + ") is not in " + this + ".");
+		}
+		return field;
+	}
+
+	/** @return the fields, lowest bits first. */
+	public List<BitField> getFields() {
+		return fields;
+	}
+
+	/** @return the number of bits used by all fields. */
+	public int getBits() {
+		return bits;
+	}
+
+	@Override
+	public String toString() {
+		return "BitFieldLayout" + fields;
+	}
+
+	/**
+	 * One field of a {@link BitFieldLayout}.  Values are unsigned.
+	 */
+	public static final class BitField {
+		private final String name;
+		private final int shift;
+		private final int width;
+		private final long max;
+		private final long mask;
+
+		BitField(String name, int shift, int width) {
+			this.name = name;
+			this.shift = shift;
+			this.width = width;
+			this.max = width == 64 ? -1L : (1L << width) - 1;
+			this.mask = max << shift;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** @return the position of the field's lowest bit. */
+		public int getShift() {
+			return shift;
+		}
+
+		/** @return the number of bits in the field. */
+		public int getWidth() {
+			return width;
+		}
+
+		/** @return the field's bits in place, for example 0b1110. */
+		public long getMask() {
+			return mask;
+		}
+
+		/** @return the largest value that fits, as an unsigned long. */
+		public long getMaxValue() {
+			return max;
+		}
+
+		public long get(long record) {
+			return (record & mask) >>> shift;
+		}
+
+		/**
+		 * @param record
+		 * @param value
+		 * @return record with the field set to value.
+		 * @throws IllegalArgumentException if value does not fit.
+		 */
+		public long set(long record, long value) {
+			return (record & ~mask) | inPlace(value);
+		}
+
+		private long inPlace(long value) {
+			if ((value & ~max) != 0) {
+				throw new IllegalArgumentException("value (" + value + ") does not fit in the " + width + " bits of "
+						+ name + ".");
+			}
+			return value << shift;
+		}
+
+		public long get(long[] records, int index) {
+			return get(records[index]);
+		}
+
+		public void set(long[] records, int index, long value) {
+			records[index] = set(records[index], value);
+		}
+
+		/**
+		 * @param records a long per record, in the buffer's byte order.
+		 * @param index of the record, not of the byte.
+		 */
+		public long get(ByteBuffer records, int index) {
+			return get(records.getLong(index << 3));
+		}
+
+		/**
+		 * @param records a long per record, in the buffer's byte order.
+		 * @param index of the record, not of the byte.
+		 * @param value
+		 */
+		public void set(ByteBuffer records, int index, long value) {
+			records.putLong(index << 3, set(records.getLong(index << 3), value));
+		}
+
+		/**
+		 * @param records
+		 * @param from index of the first record.
+		 * @param to index after the last record.
+		 * @param value
+		 * @return the number of records in which the field is value.
+		 */
+		public int count(long[] records, int from, int to, long value) {
+			long wanted = inPlace(value);
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if ((records[i] & mask) == wanted) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * @param records a long per record, in the buffer's byte order.
+		 * @param from index of the first record.
+		 * @param to index after the last record.
+		 * @param value
+		 * @return the number of records in which the field is value.
+		 */
+		public int count(ByteBuffer records, int from, int to, long value) {
+			long wanted = inPlace(value);
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if ((records.getLong(i << 3) & mask) == wanted) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Finds the records in which the field is value.
+		 * @param records
+		 * @param from index of the first record.
+		 * @param to index after the last record.
+		 * @param value
+		 * @param indexes receives the indexes of the matching records, in order, as far as it is long enough.
+		 * @return the number of matching records, which may be more than indexes holds.
+		 */
+		public int filter(long[] records, int from, int to, long value, int[] indexes) {
+			long wanted = inPlace(value);
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if ((records[i] & mask) == wanted) {
+					if (count < indexes.length) {
+						indexes[count] = i;
+					}
+					count++;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Finds the records in which the field is value.
+		 * @param records a long per record, in the buffer's byte order.
+		 * @param from index of the first record.
+		 * @param to index after the last record.
+		 * @param value
+		 * @param indexes receives the indexes of the matching records, in order, as far as it is long enough.
+		 * @return the number of matching records, which may be more than indexes holds.
+		 */
+		public int filter(ByteBuffer records, int from, int to, long value, int[] indexes) {
+			long wanted = inPlace(value);
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if ((records.getLong(i << 3) & mask) == wanted) {
+					if (count < indexes.length) {
+						indexes[count] = i;
+					}
+					count++;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return name + "[" + width + " bits, mask " + RadixFormatter.BINARY.toString(mask) + "]";
+		}
+	}
+}
@@ -0,0 +1,435 @@
+package io.github.successhawk.java7.numericliterals;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses numbers written as Java 7 literals, as in {@link BinaryLiteralsExample} and {@link UnderscoreExamples}:
+ * {@code 100}, {@code 0144}, {@code 0x64}, {@code 0b1100100}, {@code 1_000_000}, {@code 0x7fff_ffff_ffff_ffffL}
+ * and {@code 3.141_592_653_589_793_238d}, with an optional leading sign.
+ *
+ * The rules are the compiler's:
+ * <ul>
+ * <li>a leading 0 makes an octal literal, 0x or 0X a hexadecimal one and 0b or 0B a binary one.</li>
+ * <li>underscores may only be between digits, or straight after the 0 of an octal literal.</li>
+ * <li>the L suffix makes a long, and is not accepted by {@link #parseInt(CharSequence)}.</li>
+ * <li>a decimal literal must fit the type, with {@code 2147483648} and {@code 9223372036854775808L} only allowed
+ * after a minus.  A hexadecimal, octal or binary literal may use every bit of the type, so {@code 0xffffffff} is
+ * the int -1 and {@code 0b1000...0L} (64 digits) is Long.MIN_VALUE.  A minus negates the value, which leaves the
+ * minimum value unchanged.</li>
+ * <li>a floating point literal must not round to infinity, nor to zero unless it is zero.</li>
+ * </ul>
+ * With one exception, for values written by people in configuration files: {@link #parseLong(CharSequence)} and
+ * {@link #parseDouble(CharSequence)} read an integer literal as a long whether or not it has the L suffix, so
+ * {@code 3000000000} and {@code 0xffffffff} (4294967295) are accepted.  Pass {@code intUnlessSuffixed} to
+ * {@link #parseLong(CharSequence, int, int, boolean)} to type literals exactly as the compiler does, where
+ * {@code 0xffffffff} is the int -1 and {@code 3000000000} is out of range.
+ * Integers are parsed in one pass over the characters without creating any objects.  Doubles with up to 15
+ * significant digits and a decimal exponent of at most 22 are computed exactly from the digits; anything else,
+ * including hexadecimal floating point, is handed to {@link Double#parseDouble(String)} with the underscores
+ * removed.  Bytes are read as ISO-8859-1, which suits ASCII and UTF-8 text.
+ *
+ * Invalid input throws a {@link NumberFormatException}, like {@link Integer#parseInt(String)}.
+ * @author nwh02
+ *
+ */
+public final class NumericLiteralParser {
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private NumericLiteralParser() {
+	}
+
+	public static int parseInt(CharSequence literal) {
+		return parseInt(literal, 0, literal.length());
+	}
+
+	/**
+	 * @param literal
+	 * @param start index of the first char.
+	 * @param end index after the last char.
+	 * @return the value of the int literal in literal[start, end).
+	 * @throws NumberFormatException if that is not an int literal.
+	 */
+	public static int parseInt(CharSequence literal, int start, int end) {
+		return (int) parseIntegral(literal, start, end, false, true);
+	}
+
+	public static int parseInt(byte[] buf, int off, int len) {
+		return parseInt(new Latin1Sequence(buf, off, len), 0, len);
+	}
+
+	public static long parseLong(CharSequence literal) {
+		return parseLong(literal, 0, literal.length());
+	}
+
+	/**
+	 * @param literal
+	 * @param start index of the first char.
+	 * @param end index after the last char.
+	 * @return the value of the integer literal in literal[start, end), read as a long with or without the L suffix.
+	 * @throws NumberFormatException if that is not an integer literal that fits a long.
+	 */
+	public static long parseLong(CharSequence literal, int start, int end) {
+		return parseLong(literal, start, end, false);
+	}
+
+	/**
+	 * @param literal
+	 * @param start index of the first char.
+	 * @param end index after the last char.
+	 * @param intUnlessSuffixed if true, a literal without the L suffix is an int, widened, as the compiler reads
+	 *  {@code long l = 0xffffffff;}.
+	 * @return the value of the int or long literal in literal[start, end).
+	 * @throws NumberFormatException if that is not an int or long literal.
+	 */
+	public static long parseLong(CharSequence literal, int start, int end, boolean intUnlessSuffixed) {
+		return parseIntegral(literal, start, end, true, intUnlessSuffixed);
+	}
+
+	public static long parseLong(byte[] buf, int off, int len) {
+		return parseLong(new Latin1Sequence(buf, off, len), 0, len);
+	}
+
+	public static double parseDouble(CharSequence literal) {
+		return parseDouble(literal, 0, literal.length());
+	}
+
+	/**
+	 * Integer literals are accepted too, as by {@code double d = 0b01;}, and are read as longs like
+	 * {@link #parseLong(CharSequence)} does, so {@code 0xffffffff} is 4294967295.0.  An f or F suffix is accepted,
+	 * but the value is parsed as a double.
+	 * @param literal
+	 * @param start index of the first char.
+	 * @param end index after the last char.
+	 * @return the value of the literal in literal[start, end).
+	 * @throws NumberFormatException if that is not a numeric literal.
+	 */
+	public static double parseDouble(CharSequence literal, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (literal.charAt(i) == '-' || literal.charAt(i) == '+')) {
+			negative = literal.charAt(i) == '-';
+			i++;
+		}
+		if (i >= end) {
+			throw invalid(literal, start, end, "is not a number");
+		}
+		if (end - i > 1 && literal.charAt(i) == '0') {
+			char c = literal.charAt(i + 1);
+			if (c == 'x' || c == 'X') {
+				for (int j = i + 2; j < end; j++) {
+					if (literal.charAt(j) == 'p' || literal.charAt(j) == 'P') {
+						return parseHexadecimalFloatingPoint(literal, start, end);
+					}
+				}
+				return parseIntegral(literal, start, end, true, false);
+			} else if (c == 'b' || c == 'B') {
+				return parseIntegral(literal, start, end, true, false);
+			}
+		}
+		int last = end;
+		char suffix = literal.charAt(end - 1);
+		if (suffix == 'L' || suffix == 'l') {
+			return parseIntegral(literal, start, end, true, false);
+		}
+		boolean floatingPoint = suffix == 'd' || suffix == 'D' || suffix == 'f' || suffix == 'F';
+		if (floatingPoint) {
+			last--;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean exact = true;
+		boolean nonZero = false;
+		int runStart = i;
+		for (; i < last; i++) {
+			char c = literal.charAt(i);
+			if (c >= '0' && c <= '9') {
+				nonZero |= c != '0';
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					digits += mantissa == 0 ? 0 : 1;
+				} else {
+					exponent++;
+					exact &= c == '0';
+				}
+			} else if (c != '_') {
+				break;
+			}
+		}
+		boolean anyDigits = i > runStart;
+		checkRun(literal, start, end, runStart, i);
+		if (i < last && literal.charAt(i) == '.') {
+			floatingPoint = true;
+			runStart = ++i;
+			for (; i < last; i++) {
+				char c = literal.charAt(i);
+				if (c >= '0' && c <= '9') {
+					nonZero |= c != '0';
+					if (digits < 18) {
+						mantissa = mantissa * 10 + (c - '0');
+						digits += mantissa == 0 ? 0 : 1;
+						exponent--;
+					} else {
+						exact &= c == '0';
+					}
+				} else if (c != '_') {
+					break;
+				}
+			}
+			anyDigits |= i > runStart;
+			checkRun(literal, start, end, runStart, i);
+		}
+		if (!anyDigits) {
+			throw invalid(literal, start, end, "has no digits");
+		}
+		if (i < last && (literal.charAt(i) == 'e' || literal.charAt(i) == 'E')) {
+			floatingPoint = true;
+			i++;
+			boolean negativeExponent = false;
+			if (i < last && (literal.charAt(i) == '-' || literal.charAt(i) == '+')) {
+				negativeExponent = literal.charAt(i) == '-';
+				i++;
+			}
+			runStart = i;
+			int value = 0;
+			for (; i < last; i++) {
+				char c = literal.charAt(i);
+				if (c >= '0' && c <= '9') {
+					value = Math.min(value * 10 + (c - '0'), 100000);
+				} else if (c != '_') {
+					break;
+				}
+			}
+			if (i == runStart) {
+				throw invalid(literal, start, end, "has no exponent digits");
+			}
+			checkRun(literal, start, end, runStart, i);
+			exponent += negativeExponent ? -value : value;
+		}
+		if (i != last) {
+			throw invalid(literal, start, end, "is not a number");
+		}
+		if (!floatingPoint) {
+			/* octal, or a decimal that has to fit a long */
+			return parseIntegral(literal, start, end, true, false);
+		}
+		double value;
+		if (exact && digits <= 15 && exponent >= -22 && exponent <= 22) {
+			value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+			value = negative ? -value : value;
+		} else {
+			value = Double.parseDouble(withoutUnderscores(literal, start, end));
+		}
+		return checkRange(value, nonZero, literal, start, end);
+	}
+
+	public static double parseDouble(byte[] buf, int off, int len) {
+		return parseDouble(new Latin1Sequence(buf, off, len), 0, len);
+	}
+
+	/* The L suffix, only allowed if allowLong, makes a long; without it a literal is an int if intUnlessSuffixed. */
+	private static long parseIntegral(CharSequence literal, int start, int end, boolean allowLong, boolean intUnlessSuffixed) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (literal.charAt(i) == '-' || literal.charAt(i) == '+')) {
+			negative = literal.charAt(i) == '-';
+			i++;
+		}
+		int last = end;
+		boolean isLong = allowLong && !intUnlessSuffixed;
+		if (last > i && (literal.charAt(last - 1) == 'L' || literal.charAt(last - 1) == 'l')) {
+			if (!allowLong) {
+				throw invalid(literal, start, end, "is a long literal");
+			}
+			isLong = true;
+			last--;
+		}
+		if (i >= last) {
+			throw invalid(literal, start, end, "is not a number");
+		}
+		int radix = 10;
+		if (last - i > 1 && literal.charAt(i) == '0') {
+			char c = literal.charAt(i + 1);
+			if (c == 'x' || c == 'X') {
+				radix = 16;
+				i += 2;
+			} else if (c == 'b' || c == 'B') {
+				radix = 2;
+				i += 2;
+			} else {
+				radix = 8;
+				i++;
+				while (i < last && literal.charAt(i) == '_') {
+					i++;
+				}
+			}
+		}
+		if (i >= last || literal.charAt(i) == '_' || literal.charAt(last - 1) == '_') {
+			throw invalid(literal, start, end, "is not a number");
+		}
+		if (radix == 10) {
+			long limit = negative ? (isLong ? Long.MIN_VALUE : Integer.MIN_VALUE) : -(isLong ? Long.MAX_VALUE : Integer.MAX_VALUE);
+			long multiplyLimit = limit / 10;
+			long result = 0;
+			for (; i < last; i++) {
+				char c = literal.charAt(i);
+				if (c == '_') {
+					continue;
+				}
+				int digit = c - '0';
+				if (digit < 0 || digit > 9) {
+					throw invalid(literal, start, end, "is not a number");
+				}
+				if (result < multiplyLimit || result * 10 < limit + digit) {
+					throw outOfRange(literal, start, end, isLong);
+				}
+				result = result * 10 - digit;
+			}
+			return negative ? result : -result;
+		}
+		int bits = isLong ? 64 : 32;
+		int shift = radix == 16 ? 4 : radix == 8 ? 3 : 1;
+		long result = 0;
+		for (; i < last; i++) {
+			char c = literal.charAt(i);
+			if (c == '_') {
+				continue;
+			}
+			int digit = digit(c, radix);
+			if (digit < 0) {
+				throw invalid(literal, start, end, "is not a number");
+			}
+			if ((result >>> (bits - shift)) != 0) {
+				throw outOfRange(literal, start, end, isLong);
+			}
+			result = (result << shift) | digit;
+		}
+		if (!isLong) {
+			result = (int) result;
+		}
+		return negative ? -result : result;
+	}
+
+	private static int digit(char c, int radix) {
+		int digit;
+		if (c >= '0' && c <= '9') {
+			digit = c - '0';
+		} else if (c >= 'a' && c <= 'f') {
+			digit = c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'F') {
+			digit = c - 'A' + 10;
+		} else {
+			return -1;
+		}
+		return digit < radix ? digit : -1;
+	}
+
+	/* Underscores may be between digits, so not at the start or end of a run of them. */
+	private static void checkRun(CharSequence literal, int start, int end, int runStart, int runEnd) {
+		if (runEnd > runStart && (literal.charAt(runStart) == '_' || literal.charAt(runEnd - 1) == '_')) {
+			throw invalid(literal, start, end, "has an underscore that is not between digits");
+		}
+	}
+
+	private static double parseHexadecimalFloatingPoint(CharSequence literal, int start, int end) {
+		boolean exponent = false;
+		boolean nonZero = false;
+		for (int i = start; i < end; i++) {
+			char c = literal.charAt(i);
+			if (c == 'p' || c == 'P') {
+				exponent = true;
+			} else if (c == '_') {
+				if (!isDigit(literal.charAt(i - 1), exponent)) {
+					throw invalid(literal, start, end, "has an underscore that is not between digits");
+				}
+				int next = i + 1;
+				while (next < end && literal.charAt(next) == '_') {
+					next++;
+				}
+				if (next == end || !isDigit(literal.charAt(next), exponent)) {
+					throw invalid(literal, start, end, "has an underscore that is not between digits");
+				}
+				i = next - 1;
+			} else if (!exponent && digit(c, 16) > 0) {
+				nonZero = true;
+			}
+		}
+		try {
+			return checkRange(Double.parseDouble(withoutUnderscores(literal, start, end)), nonZero, literal, start, end);
+		} catch (NumberFormatException e) {
+			throw invalid(literal, start, end, "is not a number");
+		}
+	}
+
+	private static boolean isDigit(char c, boolean decimal) {
+		return decimal ? c >= '0' && c <= '9' : digit(c, 16) >= 0;
+	}
+
+	private static double checkRange(double value, boolean nonZero, CharSequence literal, int start, int end) {
+		if (Double.isInfinite(value)) {
+			throw invalid(literal, start, end, "is too large for a double");
+		}
+		if (value == 0 && nonZero) {
+			throw invalid(literal, start, end, "is too small for a double");
+		}
+		return value;
+	}
+
+	private static String withoutUnderscores(CharSequence literal, int start, int end) {
+		StringBuilder builder = new StringBuilder(end - start);
+		for (int i = start; i < end; i++) {
+			char c = literal.charAt(i);
+			if (c != '_') {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	private static NumberFormatException invalid(CharSequence literal, int start, int end, String problem) {
+		return new NumberFormatException("literal (" + literal.subSequence(start, end) + ") " + problem + ".");
+	}
+
+	private static NumberFormatException outOfRange(CharSequence literal, int start, int end, boolean isLong) {
+		return invalid(literal, start, end, "is out of range for " + (isLong ? "a long" : "an int"));
+	}
+
+	/** Bytes as chars, without decoding them into a String. */
+	private static final class Latin1Sequence implements CharSequence {
+		private final byte[] buf;
+		private final int off;
+		private final int len;
+
+		Latin1Sequence(byte[] buf, int off, int len) {
+			if (off < 0 || len < 0 || off + len > buf.length) {
+				throw new IndexOutOfBoundsException("off (" + off + ") and len (" + len + ") are outside the buffer.");
+			}
+			this.buf = buf;
+			this.off = off;
+			this.len = len;
+		}
+
+		@Override
+		public int length() {
+			return len;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (buf[off + index] & 0xff);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(buf, off + start, end - start, StandardCharsets.ISO_8859_1);
+		}
+
+		@Override
+		public String toString() {
+			return new String(buf, off, len, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
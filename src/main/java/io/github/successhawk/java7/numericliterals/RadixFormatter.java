@@ -0,0 +1,251 @@
+package io.github.successhawk.java7.numericliterals;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Formats longs in binary, octal or hexadecimal with grouped digits, such as
+ * {@code 0b01111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L} or
+ * {@code 0x7fff_ffff_ffff_ffffL}, straight into a char[], StringBuilder or ByteBuffer.
+ *
+ * Unlike {@link Long#toBinaryString(long)} followed by string concatenation, formatting creates no objects,
+ * so whole arrays of flag words can be dumped with {@code formatAll} without garbage.  Values are unsigned
+ * 64 bit numbers; format an int as {@code value & 0xffffffffL}.  Digits are grouped from the right, like the
+ * literals in {@link UnderscoreExamples}, and the predefined formatters write literals that
+ * {@link NumericLiteralParser#parseLong(CharSequence)} reads back.
+ *
+ * Immutable and thread safe.
+ * @author nwh02
+ *
+ */
+public final class RadixFormatter {
+
+	/** All 64 bits, in bytes: {@code 0b00000000_...._01100100L} */
+	public static final RadixFormatter BINARY = new RadixFormatter(2, 64, 8, '_', "0b", "L");
+	/** All 64 bits, in 16 bit groups: {@code 0x0000_0000_0000_0064L} */
+	public static final RadixFormatter HEX = new RadixFormatter(16, 16, 4, '_', "0x", "L");
+	/** Without leading zeros: {@code 0144L} */
+	public static final RadixFormatter OCTAL = new RadixFormatter(8, 1, 0, '_', "0", "L");
+
+	private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+	private final int shift;
+	private final int minDigits;
+	private final int groupSize;
+	private final char separator;
+	private final String prefix;
+	private final String suffix;
+
+	/**
+	 * @param radix 2, 8 or 16.
+	 * @param minDigits the number of digits written at least, padded with leading zeros.
+	 * @param groupSize digits per group, or 0 for no groups.
+	 * @param separator between groups.
+	 * @param prefix before the digits, such as "0x".  ASCII only.
+	 * @param suffix after the digits, such as "L".  ASCII only.
+	 */
+	public RadixFormatter(int radix, int minDigits, int groupSize, char separator, String prefix, String suffix) {
+		switch (radix) {
+		case 2:
+			shift = 1;
+			break;
+		case 8:
+			shift = 3;
+			break;
+		case 16:
+			shift = 4;
+			break;
+		default:
+			throw new IllegalArgumentException("radix (" + radix + ") must be 2, 8 or 16.");
+		}
+		if (groupSize < 0) {
+			throw new IllegalArgumentException("groupSize (" + groupSize + ") must not be negative.");
+		}
+		checkAscii(String.valueOf(separator));
+		checkAscii(prefix);
+		checkAscii(suffix);
+		this.minDigits = Math.max(1, minDigits);
+		this.groupSize = groupSize;
+		this.separator = separator;
+		this.prefix = prefix;
+		this.suffix = suffix;
+	}
+
+	private static void checkAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > 0x7f) {
+				throw new IllegalArgumentException("text (" + text + ") must be ASCII.");
+			}
+		}
+	}
+
+	private int digits(long value) {
+		int digits = (64 - Long.numberOfLeadingZeros(value) + shift - 1) / shift;
+		return Math.max(minDigits, digits);
+	}
+
+	/**
+	 * @param value
+	 * @return the number of chars, or bytes, value is formatted in.
+	 */
+	public int length(long value) {
+		int digits = digits(value);
+		int separators = groupSize == 0 ? 0 : (digits - 1) / groupSize;
+		return prefix.length() + digits + separators + suffix.length();
+	}
+
+	/* digit is counted from the right, starting at 0 */
+	private char digit(long value, int digit) {
+		return digit * shift >= 64 ? '0' : DIGITS[(int) (value >>> (digit * shift)) & ((1 << shift) - 1)];
+	}
+
+	private boolean separatorAfter(int digit) {
+		return groupSize != 0 && digit != 0 && digit % groupSize == 0;
+	}
+
+	/**
+	 * @param value
+	 * @param dst
+	 * @param off where the first char is written.
+	 * @return the index after the last char written.
+	 * @throws ArrayIndexOutOfBoundsException if dst is too short, see {@link #length(long)}.
+	 */
+	public int format(long value, char[] dst, int off) {
+		int end = off + length(value);
+		if (off < 0 || end > dst.length) {
+			throw new ArrayIndexOutOfBoundsException("dst (" + dst.length + ") is too short for " + (end - off)
+					+ " chars at " + off + ".");
+		}
+		prefix.getChars(0, prefix.length(), dst, off);
+		off += prefix.length();
+		for (int digit = digits(value) - 1; digit >= 0; digit--) {
+			dst[off++] = digit(value, digit);
+			if (separatorAfter(digit)) {
+				dst[off++] = separator;
+			}
+		}
+		suffix.getChars(0, suffix.length(), dst, off);
+		return end;
+	}
+
+	/**
+	 * @param value
+	 * @param dst appended to.
+	 * @return dst
+	 */
+	public StringBuilder format(long value, StringBuilder dst) {
+		dst.ensureCapacity(dst.length() + length(value));
+		dst.append(prefix);
+		for (int digit = digits(value) - 1; digit >= 0; digit--) {
+			dst.append(digit(value, digit));
+			if (separatorAfter(digit)) {
+				dst.append(separator);
+			}
+		}
+		return dst.append(suffix);
+	}
+
+	/**
+	 * Writes value as ASCII at the buffer's position.
+	 * @param value
+	 * @param dst
+	 * @throws BufferOverflowException if there is no room for all of it, in which case nothing is written.
+	 */
+	public void format(long value, ByteBuffer dst) {
+		if (dst.remaining() < length(value)) {
+			throw new BufferOverflowException();
+		}
+		putAscii(prefix, dst);
+		for (int digit = digits(value) - 1; digit >= 0; digit--) {
+			dst.put((byte) digit(value, digit));
+			if (separatorAfter(digit)) {
+				dst.put((byte) separator);
+			}
+		}
+		putAscii(suffix, dst);
+	}
+
+	private static void putAscii(String text, ByteBuffer dst) {
+		for (int i = 0; i < text.length(); i++) {
+			dst.put((byte) text.charAt(i));
+		}
+	}
+
+	/**
+	 * Convenience method that creates a String.
+	 * @param value
+	 * @return the formatted value.
+	 */
+	public String toString(long value) {
+		char[] chars = new char[length(value)];
+		format(value, chars, 0);
+		return new String(chars);
+	}
+
+	/**
+	 * @param values
+	 * @param from index of the first value.
+	 * @param to index after the last value.
+	 * @param delimiter between values, such as ", " or "\n".
+	 * @return the number of chars, or ASCII bytes, the values are formatted in.
+	 */
+	public int length(long[] values, int from, int to, String delimiter) {
+		int length = 0;
+		for (int i = from; i < to; i++) {
+			length += length(values[i]);
+		}
+		return length + Math.max(0, to - from - 1) * delimiter.length();
+	}
+
+	/**
+	 * Formats values[from, to) with the delimiter between them.
+	 * @return the index after the last char written.
+	 * @throws ArrayIndexOutOfBoundsException if dst is too short, see {@link #length(long[], int, int, String)}.
+	 */
+	public int formatAll(long[] values, int from, int to, String delimiter, char[] dst, int off) {
+		for (int i = from; i < to; i++) {
+			if (i != from) {
+				if (off + delimiter.length() > dst.length) {
+					throw new ArrayIndexOutOfBoundsException("dst (" + dst.length + ") is too short for the delimiter at " + off + ".");
+				}
+				delimiter.getChars(0, delimiter.length(), dst, off);
+				off += delimiter.length();
+			}
+			off = format(values[i], dst, off);
+		}
+		return off;
+	}
+
+	/**
+	 * Formats values[from, to) with the delimiter between them.
+	 * @return dst
+	 */
+	public StringBuilder formatAll(long[] values, int from, int to, String delimiter, StringBuilder dst) {
+		dst.ensureCapacity(dst.length() + length(values, from, to, delimiter));
+		for (int i = from; i < to; i++) {
+			if (i != from) {
+				dst.append(delimiter);
+			}
+			format(values[i], dst);
+		}
+		return dst;
+	}
+
+	/**
+	 * Formats values[from, to) as ASCII with the delimiter between them.
+	 * @param delimiter ASCII only.
+	 * @throws BufferOverflowException if there is no room for all of them, in which case nothing is written.
+	 */
+	public void formatAll(long[] values, int from, int to, String delimiter, ByteBuffer dst) {
+		checkAscii(delimiter);
+		if (dst.remaining() < length(values, from, to, delimiter)) {
+			throw new BufferOverflowException();
+		}
+		for (int i = from; i < to; i++) {
+			if (i != from) {
+				putAscii(delimiter, dst);
+			}
+			format(values[i], dst);
+		}
+	}
+}
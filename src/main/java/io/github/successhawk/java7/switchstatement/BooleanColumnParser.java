@@ -0,0 +1,282 @@
+package io.github.successhawk.java7.switchstatement;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses a whole column of "true", "yes", "false" and "no" cells, as {@link SwitchStatementWithStringExample#parseBoolean(String)}
+ * does one at a time, into two packed bitsets.
+ *
+ * Bit i of a bitset is {@code (bits[i >>> 6] >>> i) & 1}.  A cell's bit in {@code valid} is set if it parsed, and its
+ * bit in {@code values} is then its value.  An unparseable cell has both bits clear; it does not throw and
+ * allocates nothing.  Each word of the bitsets is written once with 64 cells, so the parallel variant splits the
+ * column on multiples of 64 and the tasks never share a word.
+ * @author nwh02
+ *
+ */
+public final class BooleanColumnParser {
+
+	/** Columns with fewer cells than this are not split further by the parallel variants. */
+	static final int PARALLEL_THRESHOLD = 64 * 1024;
+
+	private BooleanColumnParser() {
+	}
+
+	/**
+	 * @param cells
+	 * @return the length of the bitsets for that many cells.
+	 */
+	public static int words(int cells) {
+		return (cells + 63) >>> 6;
+	}
+
+	/**
+	 * @param cells null cells are invalid.
+	 * @param values receives the parsed values.
+	 * @param valid receives which cells parsed.
+	 * @param ignoreCase
+	 * @return the number of invalid cells.
+	 */
+	public static int parse(CharSequence[] cells, long[] values, long[] valid, boolean ignoreCase) {
+		return parse(Arrays.asList(cells), values, valid, ignoreCase);
+	}
+
+	/**
+	 * @param cells null cells are invalid.  Should have fast random access.
+	 * @param values receives the parsed values.
+	 * @param valid receives which cells parsed.
+	 * @param ignoreCase
+	 * @return the number of invalid cells.
+	 */
+	public static int parse(List<? extends CharSequence> cells, long[] values, long[] valid, boolean ignoreCase) {
+		Column column = new CharSequenceColumn(cells, ignoreCase);
+		checkBitsets(column.size(), values, valid);
+		return parse(column, 0, column.size(), values, valid);
+	}
+
+	/**
+	 * Parses cells that are slices of one buffer, for example found by a CSV tokenizer.
+	 * @param buf holding ASCII, ISO-8859-1 or UTF-8 text.
+	 * @param starts offset of each cell in buf.
+	 * @param lengths length of each cell.
+	 * @param values receives the parsed values.
+	 * @param valid receives which cells parsed.
+	 * @param ignoreCase
+	 * @return the number of invalid cells.
+	 */
+	public static int parse(byte[] buf, int[] starts, int[] lengths, long[] values, long[] valid, boolean ignoreCase) {
+		Column column = new SliceColumn(buf, starts, lengths, ignoreCase);
+		checkBitsets(column.size(), values, valid);
+		return parse(column, 0, column.size(), values, valid);
+	}
+
+	/**
+	 * @param buf
+	 * @param off
+	 * @param len
+	 * @param delimiter between cells, such as '\n'.
+	 * @return the number of cells in buf[off, off + len), as {@link #parseDelimited} splits them.  Pass it to
+	 * {@link #words(int)} to size the bitsets.
+	 */
+	public static int cells(byte[] buf, int off, int len, byte delimiter) {
+		int end = off + len;
+		int cells = 0;
+		for (int i = off; i < end; i++) {
+			if (buf[i] == delimiter) {
+				cells++;
+			}
+		}
+		return len > 0 && buf[end - 1] != delimiter ? cells + 1 : cells;
+	}
+
+	/**
+	 * Parses the delimited cells in buf[off, off + len), for example one column of a file in which every value
+	 * is on its own line.  Cells are not trimmed, and a trailing delimiter does not start another cell.
+	 * @param buf holding ASCII, ISO-8859-1 or UTF-8 text.
+	 * @param off
+	 * @param len
+	 * @param delimiter between cells, such as '\n'.
+	 * @param values receives the parsed values, and must be long enough for every cell, see {@link #cells}.
+	 * @param valid receives which cells parsed.
+	 * @param ignoreCase
+	 * @return the number of invalid cells.
+	 * @throws IllegalArgumentException if the bitsets are too short.
+	 */
+	public static int parseDelimited(byte[] buf, int off, int len, byte delimiter, long[] values, long[] valid,
+			boolean ignoreCase) {
+		int end = off + len;
+		int cell = 0;
+		int invalid = 0;
+		long value = 0;
+		long parsed = 0;
+		int start = off;
+		while (start < end) {
+			int stop = start;
+			while (stop < end && buf[stop] != delimiter) {
+				stop++;
+			}
+			int result = BooleanMatcher.match(buf, start, stop - start, ignoreCase);
+			if (result == BooleanMatcher.INVALID) {
+				invalid++;
+			} else {
+				parsed |= 1L << cell;
+				value |= (long) result << cell;
+			}
+			if ((++cell & 63) == 0) {
+				store(cell - 1, value, parsed, values, valid);
+				value = 0;
+				parsed = 0;
+			}
+			start = stop + 1;
+		}
+		if ((cell & 63) != 0) {
+			store(cell - 1, value, parsed, values, valid);
+		}
+		return invalid;
+	}
+
+	private static void store(int cell, long value, long parsed, long[] values, long[] valid) {
+		int word = cell >>> 6;
+		if (word >= values.length || word >= valid.length) {
+			throw new IllegalArgumentException("bitsets are too short for more than " + (word << 6) + " cells.");
+		}
+		values[word] = value;
+		valid[word] = parsed;
+	}
+
+	/**
+	 * Parses the cells with fork join tasks of at least {@value #PARALLEL_THRESHOLD} cells each.
+	 * @see #parse(List, long[], long[], boolean)
+	 */
+	public static int parseParallel(List<? extends CharSequence> cells, long[] values, long[] valid, boolean ignoreCase,
+			ForkJoinPool pool) {
+		Column column = new CharSequenceColumn(cells, ignoreCase);
+		checkBitsets(column.size(), values, valid);
+		return pool.invoke(new ParseTask(column, 0, column.size(), values, valid));
+	}
+
+	/**
+	 * Parses the slices with fork join tasks of at least {@value #PARALLEL_THRESHOLD} cells each.
+	 * @see #parse(byte[], int[], int[], long[], long[], boolean)
+	 */
+	public static int parseParallel(byte[] buf, int[] starts, int[] lengths, long[] values, long[] valid, boolean ignoreCase,
+			ForkJoinPool pool) {
+		Column column = new SliceColumn(buf, starts, lengths, ignoreCase);
+		checkBitsets(column.size(), values, valid);
+		return pool.invoke(new ParseTask(column, 0, column.size(), values, valid));
+	}
+
+	private static void checkBitsets(int cells, long[] values, long[] valid) {
+		if (values.length < words(cells) || valid.length < words(cells)) {
+			throw new IllegalArgumentException("bitsets must have at least " + words(cells) + " words for " + cells + " cells.");
+		}
+	}
+
+	/* from is a multiple of 64 */
+	private static int parse(Column column, int from, int to, long[] values, long[] valid) {
+		int invalid = 0;
+		for (int wordStart = from; wordStart < to; wordStart += 64) {
+			int wordEnd = Math.min(wordStart + 64, to);
+			long value = 0;
+			long parsed = 0;
+			for (int i = wordStart; i < wordEnd; i++) {
+				int result = column.match(i);
+				if (result == BooleanMatcher.INVALID) {
+					invalid++;
+				} else {
+					parsed |= 1L << i;
+					value |= (long) result << i;
+				}
+			}
+			values[wordStart >>> 6] = value;
+			valid[wordStart >>> 6] = parsed;
+		}
+		return invalid;
+	}
+
+	private interface Column {
+		int size();
+
+		int match(int index);
+	}
+
+	private static final class CharSequenceColumn implements Column {
+		private final List<? extends CharSequence> cells;
+		private final boolean ignoreCase;
+
+		CharSequenceColumn(List<? extends CharSequence> cells, boolean ignoreCase) {
+			this.cells = cells;
+			this.ignoreCase = ignoreCase;
+		}
+
+		@Override
+		public int size() {
+			return cells.size();
+		}
+
+		@Override
+		public int match(int index) {
+			return BooleanMatcher.match(cells.get(index), ignoreCase);
+		}
+	}
+
+	private static final class SliceColumn implements Column {
+		private final byte[] buf;
+		private final int[] starts;
+		private final int[] lengths;
+		private final boolean ignoreCase;
+
+		SliceColumn(byte[] buf, int[] starts, int[] lengths, boolean ignoreCase) {
+			if (starts.length != lengths.length) {
+				throw new IllegalArgumentException("starts (" + starts.length + ") and lengths (" + lengths.length
+						+ ") must have the same length.");
+			}
+			this.buf = buf;
+			this.starts = starts;
+			this.lengths = lengths;
+			this.ignoreCase = ignoreCase;
+		}
+
+		@Override
+		public int size() {
+			return starts.length;
+		}
+
+		@Override
+		public int match(int index) {
+			return BooleanMatcher.match(buf, starts[index], lengths[index], ignoreCase);
+		}
+	}
+
+	private static final class ParseTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private final Column column;
+		private final int from;
+		private final int to;
+		private final long[] values;
+		private final long[] valid;
+
+		ParseTask(Column column, int from, int to, long[] values, long[] valid) {
+			this.column = column;
+			this.from = from;
+			this.to = to;
+			this.values = values;
+			this.valid = valid;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				return parse(column, from, to, values, valid);
+			}
+			int middle = (from + (to - from) / 2) & ~63;
+			ParseTask right = new ParseTask(column, middle, to, values, valid);
+			right.fork();
+			int invalid = new ParseTask(column, from, middle, values, valid).compute();
+			return invalid + right.join();
+		}
+	}
+}
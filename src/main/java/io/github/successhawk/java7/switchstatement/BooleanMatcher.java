@@ -0,0 +1,91 @@
+package io.github.successhawk.java7.switchstatement;
+
+/**
+ * Matches "true", "yes", "false" and "no" without allocating, on chars or on ASCII compatible bytes.
+ *
+ * The length picks the only keyword that can match, as the hashCode does in a string switch, and then the
+ * characters are compared one by one.  Ignoring case folds ASCII letters only, so the result does not
+ * depend on the default locale.
+ * @author nwh02
+ *
+ */
+final class BooleanMatcher {
+
+	static final int TRUE = 1;
+	static final int FALSE = 0;
+	static final int INVALID = -1;
+
+	private static final char[] NO = { 'n', 'o' };
+	private static final char[] YES = { 'y', 'e', 's' };
+	private static final char[] TRUE_CHARS = { 't', 'r', 'u', 'e' };
+	private static final char[] FALSE_CHARS = { 'f', 'a', 'l', 's', 'e' };
+
+	private BooleanMatcher() {
+	}
+
+	/**
+	 * @param value may be null.
+	 * @param ignoreCase
+	 * @return {@link #TRUE}, {@link #FALSE} or {@link #INVALID}.
+	 */
+	static int match(CharSequence value, boolean ignoreCase) {
+		if (value == null) {
+			return INVALID;
+		}
+		switch (value.length()) {
+		case 2:
+			return matches(value, NO, ignoreCase) ? FALSE : INVALID;
+		case 3:
+			return matches(value, YES, ignoreCase) ? TRUE : INVALID;
+		case 4:
+			return matches(value, TRUE_CHARS, ignoreCase) ? TRUE : INVALID;
+		case 5:
+			return matches(value, FALSE_CHARS, ignoreCase) ? FALSE : INVALID;
+		default:
+			return INVALID;
+		}
+	}
+
+	/**
+	 * @param buf holding ASCII, ISO-8859-1 or UTF-8 text.
+	 * @param off
+	 * @param len
+	 * @param ignoreCase
+	 * @return {@link #TRUE}, {@link #FALSE} or {@link #INVALID}.
+	 */
+	static int match(byte[] buf, int off, int len, boolean ignoreCase) {
+		switch (len) {
+		case 2:
+			return matches(buf, off, NO, ignoreCase) ? FALSE : INVALID;
+		case 3:
+			return matches(buf, off, YES, ignoreCase) ? TRUE : INVALID;
+		case 4:
+			return matches(buf, off, TRUE_CHARS, ignoreCase) ? TRUE : INVALID;
+		case 5:
+			return matches(buf, off, FALSE_CHARS, ignoreCase) ? FALSE : INVALID;
+		default:
+			return INVALID;
+		}
+	}
+
+	/* keyword is lower case letters, and only 'A'-'Z' and 'a'-'z' become a lower case letter when or-ed with 0x20 */
+	private static boolean matches(CharSequence value, char[] keyword, boolean ignoreCase) {
+		int fold = ignoreCase ? 0x20 : 0;
+		for (int i = 0; i < keyword.length; i++) {
+			if ((value.charAt(i) | fold) != keyword[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(byte[] buf, int off, char[] keyword, boolean ignoreCase) {
+		int fold = ignoreCase ? 0x20 : 0;
+		for (int i = 0; i < keyword.length; i++) {
+			if (((buf[off + i] & 0xff) | fold) != keyword[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
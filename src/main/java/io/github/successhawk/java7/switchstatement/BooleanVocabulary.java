@@ -0,0 +1,125 @@
+package io.github.successhawk.java7.switchstatement;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.successhawk.java7.switchstatement.SwitchStatementWithStringExample.Bool;
+
+/**
+ * The words that mean true and false in some input, such as "on"/"off" or "1"/"0", compiled into a
+ * {@link KeywordMatcher}.
+ *
+ * Parsing never throws: anything that is not one of the words is {@link Bool#INVALID}, and is counted
+ * so that the amount of garbage in a feed can be monitored.  The count is shared by every thread using
+ * the vocabulary, including for the predefined ones.
+ *
+ * Immutable apart from the count, and thread safe.
+ * @author nwh02
+ *
+ */
+public final class BooleanVocabulary {
+
+	/** "true", "yes", "false" and "no", as {@link SwitchStatementWithStringExample#parseBoolean(String)} accepts. */
+	public static final BooleanVocabulary STANDARD = of("standard", Arrays.asList("true", "yes"), Arrays.asList("false", "no"), false);
+	/** "true", "yes", "false" and "no" in any case. */
+	public static final BooleanVocabulary STANDARD_IGNORE_CASE = of("standard ignoring case", Arrays.asList("true", "yes"), Arrays.asList("false", "no"), true);
+	/** "on" and "off" in any case. */
+	public static final BooleanVocabulary ON_OFF = of("on/off", Arrays.asList("on"), Arrays.asList("off"), true);
+	/** "1" and "0". */
+	public static final BooleanVocabulary ONE_ZERO = of("1/0", Arrays.asList("1"), Arrays.asList("0"), false);
+	/** "y" and "n" in any case. */
+	public static final BooleanVocabulary Y_N = of("y/n", Arrays.asList("y"), Arrays.asList("n"), true);
+
+	private final String name;
+	private final KeywordMatcher<Bool> matcher;
+	private final AtomicLong invalid = new AtomicLong();
+
+	private BooleanVocabulary(String name, KeywordMatcher<Bool> matcher) {
+		this.name = name;
+		this.matcher = matcher;
+	}
+
+	/**
+	 * @param name for logging and monitoring.
+	 * @param trueWords
+	 * @param falseWords
+	 * @param ignoreCase if ASCII letters match regardless of case.  Other letters, for example in localized
+	 *  words, always match exactly.
+	 * @return the vocabulary.
+	 * @throws IllegalArgumentException if a word means both true and false, or is given twice.
+	 */
+	public static BooleanVocabulary of(String name, Collection<String> trueWords, Collection<String> falseWords, boolean ignoreCase) {
+		Map<String, Bool> words = new HashMap<>();
+		for (String word : trueWords) {
+			add(words, word, Bool.TRUE);
+		}
+		for (String word : falseWords) {
+			add(words, word, Bool.FALSE);
+		}
+		return new BooleanVocabulary(name, KeywordMatcher.compile(words, ignoreCase));
+	}
+
+	private static void add(Map<String, Bool> words, String word, Bool value) {
+		if (words.put(word, value) != null) {
+			throw new IllegalArgumentException("word (" + word + ") is given more than once.");
+		}
+	}
+
+	/**
+	 * @param value may be null.
+	 * @return TRUE, FALSE or INVALID.
+	 */
+	public Bool parse(CharSequence value) {
+		return counted(matcher.get(value));
+	}
+
+	/**
+	 * @param value
+	 * @param start index of the first char.
+	 * @param end index after the last char.
+	 * @return TRUE, FALSE or INVALID for value[start, end).
+	 */
+	public Bool parse(CharSequence value, int start, int end) {
+		return counted(matcher.get(value, start, end));
+	}
+
+	/**
+	 * @param buf holding UTF-8 text.
+	 * @param off
+	 * @param len
+	 * @return TRUE, FALSE or INVALID.
+	 */
+	public Bool parse(byte[] buf, int off, int len) {
+		return counted(matcher.get(buf, off, len));
+	}
+
+	private Bool counted(Bool result) {
+		if (result == null) {
+			invalid.incrementAndGet();
+			return Bool.INVALID;
+		}
+		return result;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/** @return the number of invalid inputs parsed so far. */
+	public long getInvalidCount() {
+		return invalid.get();
+	}
+
+	/** @return the number of invalid inputs parsed since the last call. */
+	public long resetInvalidCount() {
+		return invalid.getAndSet(0);
+	}
+
+	@Override
+	public String toString() {
+		return "BooleanVocabulary[" + name + "]";
+	}
+}
@@ -0,0 +1,243 @@
+package io.github.successhawk.java7.switchstatement;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Looks up a value by keyword, like a switch on a String, for keywords that are only known at run time.
+ *
+ * javac compiles a string switch into a switch on hashCode() followed by equals().  A compiled matcher does
+ * the same with an open addressing table that keeps every keyword's hash next to it: a lookup hashes the
+ * input once, without creating a String, and compares characters only when the hashes are equal.  The table
+ * is at most half full, so a miss usually ends at the first empty slot or hash compare.
+ *
+ * Keywords can be matched on chars, from any CharSequence, or on UTF-8 bytes, straight from a buffer.
+ * Ignoring case folds ASCII letters only, like
+ * {@link SwitchStatementWithStringExample#parseBooleanIgnoreCase(CharSequence)}, so the default locale
+ * does not matter.
+ *
+ * Immutable and thread safe.
+ * @author nwh02
+ *
+ */
+public final class KeywordMatcher<V> {
+
+	private final boolean ignoreCase;
+	private final int size;
+	private final int mask;
+	private final int[] charHashes;
+	private final char[][] charKeys;
+	private final Object[] charValues;
+	private final int[] byteHashes;
+	private final byte[][] byteKeys;
+	private final Object[] byteValues;
+
+	private KeywordMatcher(boolean ignoreCase, int size) {
+		int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+		this.ignoreCase = ignoreCase;
+		this.size = size;
+		this.mask = capacity - 1;
+		this.charHashes = new int[capacity];
+		this.charKeys = new char[capacity][];
+		this.charValues = new Object[capacity];
+		this.byteHashes = new int[capacity];
+		this.byteKeys = new byte[capacity][];
+		this.byteValues = new Object[capacity];
+	}
+
+	/**
+	 * @param keywords to their values.  Neither may be null.
+	 * @param ignoreCase if ASCII letters match regardless of case.
+	 * @return the matcher.
+	 * @throws IllegalArgumentException if two keywords only differ in case and case is ignored.
+	 */
+	public static <V> KeywordMatcher<V> compile(Map<String, ? extends V> keywords, boolean ignoreCase) {
+		KeywordMatcher<V> matcher = new KeywordMatcher<>(ignoreCase, keywords.size());
+		for (Map.Entry<String, ? extends V> entry : keywords.entrySet()) {
+			String keyword = entry.getKey();
+			V value = entry.getValue();
+			if (keyword == null || value == null) {
+				throw new NullPointerException("keyword (" + keyword + ") and value (" + value + ") must not be null.");
+			}
+			char[] chars = keyword.toCharArray();
+			byte[] bytes = keyword.getBytes(StandardCharsets.UTF_8);
+			if (ignoreCase) {
+				for (int i = 0; i < chars.length; i++) {
+					chars[i] = (char) fold(chars[i]);
+				}
+				for (int i = 0; i < bytes.length; i++) {
+					bytes[i] = (byte) fold(bytes[i] & 0xff);
+				}
+			}
+			int hash = hash(chars);
+			int slot = hash & matcher.mask;
+			while (matcher.charKeys[slot] != null) {
+				if (matcher.charHashes[slot] == hash && equals(matcher.charKeys[slot], chars)) {
+					throw new IllegalArgumentException("keyword (" + keyword + ") is a duplicate"
+							+ (ignoreCase ? " when case is ignored." : "."));
+				}
+				slot = (slot + 1) & matcher.mask;
+			}
+			matcher.charHashes[slot] = hash;
+			matcher.charKeys[slot] = chars;
+			matcher.charValues[slot] = value;
+
+			hash = hash(bytes);
+			slot = hash & matcher.mask;
+			while (matcher.byteKeys[slot] != null) {
+				slot = (slot + 1) & matcher.mask;
+			}
+			matcher.byteHashes[slot] = hash;
+			matcher.byteKeys[slot] = bytes;
+			matcher.byteValues[slot] = value;
+		}
+		return matcher;
+	}
+
+	/** ASCII upper case letters to lower case, anything else unchanged. */
+	private static int fold(int c) {
+		return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int hash(char[] chars) {
+		int h = 0;
+		for (char c : chars) {
+			h = 31 * h + c;
+		}
+		return mix(h);
+	}
+
+	private static int hash(byte[] bytes) {
+		int h = 0;
+		for (byte b : bytes) {
+			h = 31 * h + (b & 0xff);
+		}
+		return mix(h);
+	}
+
+	private static boolean equals(char[] a, char[] b) {
+		if (a.length != b.length) {
+			return false;
+		}
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param value may be null.
+	 * @return the value of the keyword, or null if value is not a keyword.
+	 */
+	public V get(CharSequence value) {
+		return value == null ? null : get(value, 0, value.length());
+	}
+
+	/**
+	 * @param value
+	 * @param start index of the first char.
+	 * @param end index after the last char.
+	 * @return the value of the keyword value[start, end), or null if that is not a keyword.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(CharSequence value, int start, int end) {
+		int length = end - start;
+		int h = 0;
+		if (ignoreCase) {
+			for (int i = start; i < end; i++) {
+				h = 31 * h + fold(value.charAt(i));
+			}
+		} else {
+			for (int i = start; i < end; i++) {
+				h = 31 * h + value.charAt(i);
+			}
+		}
+		h = mix(h);
+		for (int slot = h & mask; charKeys[slot] != null; slot = (slot + 1) & mask) {
+			char[] key = charKeys[slot];
+			if (charHashes[slot] == h && key.length == length && matches(key, value, start)) {
+				return (V) charValues[slot];
+			}
+		}
+		return null;
+	}
+
+	private boolean matches(char[] key, CharSequence value, int start) {
+		if (ignoreCase) {
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != fold(value.charAt(start + i))) {
+					return false;
+				}
+			}
+		} else {
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != value.charAt(start + i)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param buf holding UTF-8 text.
+	 * @param off
+	 * @param len
+	 * @return the value of the keyword encoded in the bytes, or null if they are not a keyword.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(byte[] buf, int off, int len) {
+		int end = off + len;
+		int h = 0;
+		if (ignoreCase) {
+			for (int i = off; i < end; i++) {
+				h = 31 * h + fold(buf[i] & 0xff);
+			}
+		} else {
+			for (int i = off; i < end; i++) {
+				h = 31 * h + (buf[i] & 0xff);
+			}
+		}
+		h = mix(h);
+		for (int slot = h & mask; byteKeys[slot] != null; slot = (slot + 1) & mask) {
+			byte[] key = byteKeys[slot];
+			if (byteHashes[slot] == h && key.length == len && matches(key, buf, off)) {
+				return (V) byteValues[slot];
+			}
+		}
+		return null;
+	}
+
+	private boolean matches(byte[] key, byte[] buf, int off) {
+		if (ignoreCase) {
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != (byte) fold(buf[off + i] & 0xff)) {
+					return false;
+				}
+			}
+		} else {
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != buf[off + i]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/** @return the number of keywords. */
+	public int size() {
+		return size;
+	}
+
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+}
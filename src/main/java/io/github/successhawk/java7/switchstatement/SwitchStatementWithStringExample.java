@@ -1,5 +1,7 @@
 package io.github.successhawk.java7.switchstatement;
 
+import java.nio.charset.StandardCharsets;
+
 public class SwitchStatementWithStringExample {
 
 /**
@@ -71,7 +73,87 @@ public static boolean parseBooleanIgnoreCase(String value) {
 }
 
 
-enum Bool{ TRUE, FALSE };
+/**
+ * Parses the characters as a boolean, ignoring case, without allocating.
+ * Unlike {@link #parseBooleanIgnoreCase(String)} there is no toLowerCase(): the length picks the
+ * keyword and only ASCII letters are folded, so the default locale does not matter.
+ * @param value
+ * @return boolean
+ * @throws IllegalArgumentException if value, ignoring case, is not
+ * 	 "true", "yes", "false", or "no"
+ */
+public static boolean parseBooleanIgnoreCase(CharSequence value) {
+	int result = BooleanMatcher.match(value, true);
+	if ( result == BooleanMatcher.INVALID ) {
+		throw new IllegalArgumentException("value (" + value + ") is not a boolean.");
+	}
+	return result == BooleanMatcher.TRUE;
+}
+
+/**
+ * Parses the bytes as a boolean, ignoring case, without allocating, for example straight from a
+ * network or file buffer.
+ * @param buf holding ASCII, ISO-8859-1 or UTF-8 text.
+ * @param off
+ * @param len
+ * @return boolean
+ * @throws IllegalArgumentException if the bytes, ignoring case, are not
+ * 	 "true", "yes", "false", or "no"
+ */
+public static boolean parseBooleanIgnoreCase(byte[] buf, int off, int len) {
+	int result = BooleanMatcher.match(buf, off, len, true);
+	if ( result == BooleanMatcher.INVALID ) {
+		throw new IllegalArgumentException("value (" + new String(buf, off, len, StandardCharsets.ISO_8859_1) + ") is not a boolean.");
+	}
+	return result == BooleanMatcher.TRUE;
+}
+
+/**
+ * Parses the characters as a boolean, like {@link #parseBoolean(String)}, but returns
+ * {@link Bool#INVALID} instead of throwing, so dirty input costs no exception.
+ * @param value may be null.
+ * @return TRUE, FALSE or INVALID.
+ * @see BooleanVocabulary for other words.
+ */
+public static Bool parseBool(CharSequence value) {
+	return toBool(BooleanMatcher.match(value, false));
+}
+
+/**
+ * Parses the characters as a boolean, ignoring case, like {@link #parseBooleanIgnoreCase(CharSequence)},
+ * but returns {@link Bool#INVALID} instead of throwing.
+ * @param value may be null.
+ * @return TRUE, FALSE or INVALID.
+ */
+public static Bool parseBoolIgnoreCase(CharSequence value) {
+	return toBool(BooleanMatcher.match(value, true));
+}
+
+/**
+ * Parses the bytes as a boolean, ignoring case, like {@link #parseBooleanIgnoreCase(byte[], int, int)},
+ * but returns {@link Bool#INVALID} instead of throwing.
+ * @param buf holding ASCII, ISO-8859-1 or UTF-8 text.
+ * @param off
+ * @param len
+ * @return TRUE, FALSE or INVALID.
+ */
+public static Bool parseBoolIgnoreCase(byte[] buf, int off, int len) {
+	return toBool(BooleanMatcher.match(buf, off, len, true));
+}
+
+private static Bool toBool(int result) {
+	switch (result) {
+	case BooleanMatcher.TRUE:
+		return Bool.TRUE;
+	case BooleanMatcher.FALSE:
+		return Bool.FALSE;
+	default:
+		return Bool.INVALID;
+	}
+}
+
+/** The result of parsing a boolean without exceptions. */
+public enum Bool{ TRUE, FALSE, INVALID };
 
 
 
@@ -0,0 +1,188 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Closes resources on background threads so that a slow close() does not hold up the thread that
+ * leaves the try-with-resources block.
+ *
+ * <pre>
+ * try (BackgroundCloser.Deferred&lt;InputStream&gt; in = closer.defer(openNetworkStream())) {
+ *     ...
+ * } // returns at once, the stream is closed by the closer
+ * </pre>
+ * Like {@link PropertiesLoadExample.IgnoreCloseErrors}, close errors are logged (through a
+ * {@link CloseErrorRateLimiter}) and never thrown, so only use it for resources whose close can be ignored.
+ * When the queue is full the resource is closed on the calling thread instead, which also slows callers
+ * down when the closers can not keep up.
+ *
+ * Closing the BackgroundCloser closes everything still queued before it returns.
+ * @author nwh02
+ *
+ */
+public final class BackgroundCloser implements AutoCloseable {
+
+	private final ThreadPoolExecutor executor;
+	private final Logger log;
+	private final Level level;
+	private final CloseErrorRateLimiter limiter;
+	private final AtomicLong closes = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong synchronousCloses = new AtomicLong();
+	private final AtomicLong totalCloseNanos = new AtomicLong();
+	private final AtomicLong maxCloseNanos = new AtomicLong();
+
+	/**
+	 * @param threads number of closing threads.
+	 * @param queueCapacity number of resources that may wait to be closed.
+	 * @param log to log close errors to.
+	 * @param level to log at.
+	 * @param limiter if null, then every close error is logged.
+	 */
+	public BackgroundCloser(int threads, int queueCapacity, Logger log, Level level, CloseErrorRateLimiter limiter) {
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "background-closer-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		this.log = log;
+		this.level = level;
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Wraps the resource so that closing the wrapper queues the resource for closing.
+	 * @param closeable
+	 * @return
+	 */
+	public <C extends AutoCloseable> Deferred<C> defer(C closeable) {
+		return new Deferred<>(this, closeable);
+	}
+
+	private void closeLater(final AutoCloseable closeable) {
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					closeNow(closeable);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			synchronousCloses.incrementAndGet();
+			closeNow(closeable);
+		}
+	}
+
+	private void closeNow(AutoCloseable closeable) {
+		long start = System.nanoTime();
+		try {
+			if (!PropertiesLoadExample.IgnoreCloseErrors.closeQuietly(closeable, log, level, null, limiter)) {
+				failures.incrementAndGet();
+			}
+		} finally {
+			long nanos = System.nanoTime() - start;
+			closes.incrementAndGet();
+			totalCloseNanos.addAndGet(nanos);
+			for (long max = maxCloseNanos.get(); nanos > max && !maxCloseNanos.compareAndSet(max, nanos); max = maxCloseNanos.get()) {
+				/* retry */
+			}
+		}
+	}
+
+	/** @return number of resources waiting to be closed. */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/** @return number of resources closed, successfully or not. */
+	public long getCloseCount() {
+		return closes.get();
+	}
+
+	/** @return number of closes that threw. */
+	public long getFailureCount() {
+		return failures.get();
+	}
+
+	/** @return number of resources closed on the calling thread because the queue was full. */
+	public long getSynchronousCloseCount() {
+		return synchronousCloses.get();
+	}
+
+	/** @return the average time a close() took, in nanoseconds. */
+	public long getAverageCloseNanos() {
+		long count = closes.get();
+		return count == 0 ? 0 : totalCloseNanos.get() / count;
+	}
+
+	/** @return the longest time a close() took, in nanoseconds. */
+	public long getMaxCloseNanos() {
+		return maxCloseNanos.get();
+	}
+
+	/**
+	 * Closes every queued resource, then stops the closing threads.
+	 * Resources deferred after this are closed synchronously.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		boolean interrupted = false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A resource whose close() is handed to a {@link BackgroundCloser}.
+	 */
+	public static final class Deferred<C extends AutoCloseable> implements AutoCloseable {
+		private final BackgroundCloser closer;
+		private final C closeable;
+		private boolean closed;
+
+		Deferred(BackgroundCloser closer, C closeable) {
+			this.closer = closer;
+			this.closeable = closeable;
+		}
+
+		/**
+		 * Returns the wrapped AutoCloseable.
+		 * @return
+		 */
+		public C get() {
+			return closeable;
+		}
+
+		/** Queues the resource for closing.  Only the first call has an effect. */
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				closer.closeLater(closeable);
+			}
+		}
+	}
+}
@@ -0,0 +1,333 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A properties file compiled into a binary file that is memory mapped and queried without parsing.
+ *
+ * Layout, big endian:
+ * <pre>
+ * header   magic, version, entry count, unused (4 ints),
+ *          source last modified, source size, defaults last modified, defaults size (4 longs)
+ * index    one entry per key, sorted by the UTF-8 bytes of the key:
+ *          key offset, key length, value offset, value length, type flags (5 ints), number, duration (2 longs)
+ * strings  the UTF-8 bytes of all keys and values
+ * </pre>
+ * A lookup is a binary search over the index that compares the key with the mapped bytes directly, so
+ * nothing is parsed and the typed getters allocate nothing.  Opening only checks that the index and every
+ * string it points to lie inside the file, so a truncated or corrupt snapshot is rejected up front.  Values are
+ * typed at compile time with the rules of {@link CompactProperties}.
+ *
+ * The header records the size and modification time of the source files.  {@link #openOrRebuild(Path, Path, Path)}
+ * recompiles the snapshot when they no longer match.
+ * @author nwh02
+ *
+ */
+public final class BinaryConfigSnapshot {
+
+	private static final Logger logger = Logger
+			.getLogger(BinaryConfigSnapshot.class);
+
+	private static final int MAGIC = 0x4A374353; // "J7CS"
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 * 4 + 4 * 8;
+	private static final int ENTRY_SIZE = 5 * 4 + 2 * 8;
+
+	private final ByteBuffer buffer;
+	private final int count;
+
+	private BinaryConfigSnapshot(ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a configuration snapshot.");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Configuration snapshot version " + buffer.getInt(4) + " is not " + VERSION + ".");
+		}
+		int count = buffer.getInt(8);
+		if (count < 0 || count > (buffer.capacity() - HEADER_SIZE) / ENTRY_SIZE) {
+			throw new IOException("Configuration snapshot index of " + count + " entries does not fit in "
+					+ buffer.capacity() + " bytes.");
+		}
+		for (int entry = HEADER_SIZE; entry < HEADER_SIZE + count * ENTRY_SIZE; entry += ENTRY_SIZE) {
+			checkString(buffer, buffer.getInt(entry), buffer.getInt(entry + 4));
+			checkString(buffer, buffer.getInt(entry + 8), buffer.getInt(entry + 12));
+		}
+		this.buffer = buffer;
+		this.count = count;
+	}
+
+	private static void checkString(ByteBuffer buffer, int offset, int length) throws IOException {
+		if (offset < 0 || length < 0 || offset > buffer.capacity() - length) {
+			throw new IOException("Configuration snapshot string of " + length + " bytes at " + offset
+					+ " is outside of " + buffer.capacity() + " bytes.");
+		}
+	}
+
+	/**
+	 * Maps an existing snapshot.
+	 * @param snapshot
+	 * @return
+	 * @throws IOException if the file is not a snapshot of the current version, or is truncated or corrupt.
+	 */
+	public static BinaryConfigSnapshot open(Path snapshot) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Configuration snapshot of " + channel.size() + " bytes is too large.");
+			}
+			/* The mapping stays valid after the channel is closed. */
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new BinaryConfigSnapshot(buffer);
+		}
+	}
+
+	/**
+	 * Maps the snapshot, compiling it first if it is missing, of another version, or was compiled from
+	 * different versions of the source files.
+	 * @param source
+	 * @param defaults may be null.
+	 * @param snapshot
+	 * @return
+	 * @throws IOException
+	 */
+	public static BinaryConfigSnapshot openOrRebuild(Path source, Path defaults, Path snapshot) throws IOException {
+		if (Files.exists(snapshot)) {
+			try {
+				BinaryConfigSnapshot opened = open(snapshot);
+				if (opened.isCompiledFrom(source, defaults)) {
+					return opened;
+				}
+			} catch (IOException e) {
+				logger.debug("Rebuilding " + snapshot + " " + e);
+			}
+		}
+		compile(source, defaults, snapshot);
+		return open(snapshot);
+	}
+
+	/**
+	 * Compiles source, on top of defaults, into snapshot.  The snapshot is replaced atomically, so
+	 * processes that have the old one mapped keep a consistent view.
+	 * @param source
+	 * @param defaults may be null.
+	 * @param snapshot
+	 * @throws IOException
+	 */
+	public static void compile(Path source, Path defaults, Path snapshot) throws IOException {
+		long[] stamps = stamps(source, defaults);
+		Properties properties = new Properties();
+		if (defaults != null) {
+			load(defaults, properties);
+		}
+		load(source, properties);
+
+		List<byte[][]> entries = new ArrayList<>();
+		for (String key : properties.stringPropertyNames()) {
+			entries.add(new byte[][] { key.getBytes(StandardCharsets.UTF_8),
+					properties.getProperty(key).getBytes(StandardCharsets.UTF_8) });
+		}
+		Collections.sort(entries, new Comparator<byte[][]>() {
+			@Override
+			public int compare(byte[][] a, byte[][] b) {
+				return compareBytes(a[0], b[0]);
+			}
+		});
+
+		int stringsStart = HEADER_SIZE + entries.size() * ENTRY_SIZE;
+		int size = stringsStart;
+		for (byte[][] entry : entries) {
+			size += entry[0].length + entry[1].length;
+		}
+		ByteBuffer out = ByteBuffer.allocate(size);
+		out.putInt(MAGIC).putInt(VERSION).putInt(entries.size()).putInt(0);
+		for (long stamp : stamps) {
+			out.putLong(stamp);
+		}
+		long[] number = new long[1];
+		long[] duration = new long[1];
+		int stringOffset = stringsStart;
+		for (byte[][] entry : entries) {
+			byte types = CompactProperties.parseTypes(new String(entry[1], StandardCharsets.UTF_8), number, duration, 0);
+			out.putInt(stringOffset).putInt(entry[0].length);
+			stringOffset += entry[0].length;
+			out.putInt(stringOffset).putInt(entry[1].length);
+			stringOffset += entry[1].length;
+			out.putInt(types).putLong(number[0]).putLong(duration[0]);
+		}
+		for (byte[][] entry : entries) {
+			out.put(entry[0]).put(entry[1]);
+		}
+		out.flip();
+
+		Path target = snapshot.toAbsolutePath();
+		/* Not Files.createTempFile: other accounts must still be able to map the snapshot. */
+		Path temp = GroupCommitter.createTempSibling(target);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while (out.hasRemaining()) {
+					channel.write(out);
+				}
+				/* Otherwise a crash after the move can leave a renamed but empty or partial snapshot. */
+				channel.force(true);
+			}
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		GroupCommitter.syncDirectory(target.getParent());
+		logger.debug("Compiled " + entries.size() + " properties from " + source + " into " + snapshot);
+	}
+
+	private static void load(Path path, Properties properties) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			properties.load(in);
+		}
+	}
+
+	/** @return last modified and size of source and defaults, -1 for missing defaults. */
+	private static long[] stamps(Path source, Path defaults) throws IOException {
+		BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+		long[] stamps = { sourceAttributes.lastModifiedTime().toMillis(), sourceAttributes.size(), -1, -1 };
+		if (defaults != null) {
+			BasicFileAttributes defaultsAttributes = Files.readAttributes(defaults, BasicFileAttributes.class);
+			stamps[2] = defaultsAttributes.lastModifiedTime().toMillis();
+			stamps[3] = defaultsAttributes.size();
+		}
+		return stamps;
+	}
+
+	private boolean isCompiledFrom(Path source, Path defaults) throws IOException {
+		long[] stamps = stamps(source, defaults);
+		for (int i = 0; i < stamps.length; i++) {
+			if (buffer.getLong(16 + i * 8) != stamps[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** @return the number of keys. */
+	public int size() {
+		return count;
+	}
+
+	/** @return the value, or null. */
+	public String getString(String key) {
+		int entry = find(key);
+		if (entry < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[buffer.getInt(entry + 12)];
+		ByteBuffer value = buffer.duplicate();
+		value.position(buffer.getInt(entry + 8));
+		value.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** @return the value, or defaultValue if the key is missing or not an int. */
+	public int getInt(String key, int defaultValue) {
+		int entry = find(key);
+		return entry >= 0 && (buffer.getInt(entry + 16) & CompactProperties.INT) != 0 ? (int) buffer.getLong(entry + 20) : defaultValue;
+	}
+
+	/** @return the value, or defaultValue if the key is missing or not a long. */
+	public long getLong(String key, long defaultValue) {
+		int entry = find(key);
+		return entry >= 0 && (buffer.getInt(entry + 16) & CompactProperties.LONG) != 0 ? buffer.getLong(entry + 20) : defaultValue;
+	}
+
+	/** @return the value, or defaultValue if the key is missing or not true, yes, false or no (ignoring case). */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		int entry = find(key);
+		if (entry < 0) {
+			return defaultValue;
+		}
+		int types = buffer.getInt(entry + 16);
+		return (types & CompactProperties.BOOLEAN) != 0 ? (types & CompactProperties.TRUE) != 0 : defaultValue;
+	}
+
+	/** @return the value in milliseconds, or defaultMillis if the key is missing or not a duration. */
+	public long getDurationMillis(String key, long defaultMillis) {
+		int entry = find(key);
+		return entry >= 0 && (buffer.getInt(entry + 16) & CompactProperties.DURATION) != 0 ? buffer.getLong(entry + 28) : defaultMillis;
+	}
+
+	/** @return the buffer offset of the key's index entry, or -1. */
+	private int find(String key) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int entry = HEADER_SIZE + middle * ENTRY_SIZE;
+			int cmp = compareKey(key, buffer.getInt(entry), buffer.getInt(entry + 4));
+			if (cmp > 0) {
+				low = middle + 1;
+			} else if (cmp < 0) {
+				high = middle - 1;
+			} else {
+				return entry;
+			}
+		}
+		return -1;
+	}
+
+	/** Compares the UTF-8 encoding of key, produced on the fly, with the stored key bytes. */
+	private int compareKey(String key, int offset, int length) {
+		int stored = 0;
+		for (int i = 0; i < key.length();) {
+			int cp = key.codePointAt(i);
+			i += Character.charCount(cp);
+			int encoded;
+			int byteCount;
+			if (cp < 0x80) {
+				encoded = cp;
+				byteCount = 1;
+			} else if (cp < 0x800) {
+				encoded = (0xc0 | cp >> 6) << 8 | (0x80 | cp & 0x3f);
+				byteCount = 2;
+			} else if (cp < 0x10000) {
+				encoded = (0xe0 | cp >> 12) << 16 | (0x80 | (cp >> 6) & 0x3f) << 8 | (0x80 | cp & 0x3f);
+				byteCount = 3;
+			} else {
+				encoded = (0xf0 | cp >> 18) << 24 | (0x80 | (cp >> 12) & 0x3f) << 16 | (0x80 | (cp >> 6) & 0x3f) << 8 | (0x80 | cp & 0x3f);
+				byteCount = 4;
+			}
+			for (int shift = (byteCount - 1) * 8; shift >= 0; shift -= 8) {
+				if (stored == length) {
+					return 1;
+				}
+				int difference = ((encoded >>> shift) & 0xff) - (buffer.get(offset + stored++) & 0xff);
+				if (difference != 0) {
+					return difference;
+				}
+			}
+		}
+		return stored == length ? 0 : -1;
+	}
+
+	private static int compareBytes(byte[] a, byte[] b) {
+		for (int i = 0; i < a.length && i < b.length; i++) {
+			int difference = (a[i] & 0xff) - (b[i] & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return a.length - b.length;
+	}
+}
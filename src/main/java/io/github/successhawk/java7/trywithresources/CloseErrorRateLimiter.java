@@ -0,0 +1,125 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Limits how often the same close failure is logged.
+ *
+ * Failures are counted per exception type and message.  The first {@code logFirst} of each are logged
+ * with their stack trace; after that a one line summary with the number of further occurrences is logged
+ * at most once per summary interval.  Summaries are written by whichever thread reports a failure after
+ * the interval has passed, so a failure that stops happening gets no final summary.
+ *
+ * Counting is lock free: a repeated failure costs two map lookups and a few atomic increments, never a
+ * call to the appender.  The number of distinct messages tracked per type is capped; further messages
+ * share one counter.
+ * @author nwh02
+ *
+ */
+public final class CloseErrorRateLimiter {
+
+	/** Used by {@link PropertiesLoadExample.IgnoreCloseErrors} unless told otherwise. */
+	public static final CloseErrorRateLimiter DEFAULT = new CloseErrorRateLimiter(10, 1, TimeUnit.MINUTES, 1000);
+
+	private static final String OTHER_MESSAGES = "(other messages)";
+
+	private final int logFirst;
+	private final long summaryIntervalNanos;
+	private final int maxMessages;
+	private final ConcurrentMap<Class<?>, Messages> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * @param logFirst number of occurrences of each failure that are logged in full.
+	 * @param summaryInterval least time between two summaries of the same failure.
+	 * @param unit of summaryInterval.
+	 * @param maxMessages number of distinct messages tracked per exception type before further messages of
+	 *  that type are lumped together.
+	 */
+	public CloseErrorRateLimiter(int logFirst, long summaryInterval, TimeUnit unit, int maxMessages) {
+		this.logFirst = logFirst;
+		this.summaryIntervalNanos = unit.toNanos(summaryInterval);
+		this.maxMessages = maxMessages;
+	}
+
+	/**
+	 * Logs the failure if it has not been logged too often.
+	 * @param log
+	 * @param level
+	 * @param message logged with the failure.
+	 * @param e the failure.
+	 */
+	public void log(Logger log, Level level, String message, Throwable e) {
+		if (!log.isEnabledFor(level)) {
+			return;
+		}
+		Counter counter = counter(e);
+		long total = counter.total.incrementAndGet();
+		if (total <= logFirst) {
+			log.log(level, message, e);
+			return;
+		}
+		counter.unreported.incrementAndGet();
+		long now = System.nanoTime();
+		long lastSummary = counter.lastSummary.get();
+		if (now - lastSummary >= summaryIntervalNanos && counter.lastSummary.compareAndSet(lastSummary, now)) {
+			log.log(level, message + " (" + counter.unreported.getAndSet(0) + " more " + e.getClass().getName()
+					+ " since the last report, " + total + " in total)");
+		}
+	}
+
+	/**
+	 * @return how often the failure has been reported, logged or not.
+	 */
+	public long getCount(Class<? extends Throwable> type, String message) {
+		Messages messages = counters.get(type);
+		Counter counter = messages == null ? null : messages.byMessage.get(message == null ? "" : message);
+		return counter == null ? 0 : counter.total.get();
+	}
+
+	private Counter counter(Throwable e) {
+		Messages messages = counters.get(e.getClass());
+		if (messages == null) {
+			Messages created = new Messages();
+			messages = counters.putIfAbsent(e.getClass(), created);
+			if (messages == null) {
+				messages = created;
+			}
+		}
+		String message = e.getMessage() == null ? "" : e.getMessage();
+		Counter counter = messages.byMessage.get(message);
+		if (counter == null) {
+			if (messages.count.get() >= maxMessages) {
+				message = OTHER_MESSAGES;
+				counter = messages.byMessage.get(message);
+			}
+			if (counter == null) {
+				Counter created = new Counter();
+				counter = messages.byMessage.putIfAbsent(message, created);
+				if (counter == null) {
+					counter = created;
+					messages.count.incrementAndGet();
+				}
+			}
+		}
+		return counter;
+	}
+
+	/** The counters of one exception type. */
+	private static final class Messages {
+		final ConcurrentMap<String, Counter> byMessage = new ConcurrentHashMap<>();
+		final AtomicInteger count = new AtomicInteger();
+	}
+
+	private static final class Counter {
+		final AtomicLong total = new AtomicLong();
+		final AtomicLong unreported = new AtomicLong();
+		final AtomicLong lastSummary = new AtomicLong(System.nanoTime());
+	}
+}
@@ -0,0 +1,419 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.successhawk.java7.switchstatement.SwitchStatementWithStringExample;
+
+/**
+ * An immutable properties table for hot read paths.
+ *
+ * The file is read with one bulk read and parsed with the same rules as {@link java.util.Properties#load(java.io.InputStream)}
+ * (ISO-8859-1, escapes, continuation lines, comments).  The entries go into an open addressing table of
+ * plain arrays instead of a synchronized Hashtable.  Every value is also parsed once, at load time, as an
+ * int, long, boolean (the "true", "yes", "false", "no" vocabulary of
+ * {@link SwitchStatementWithStringExample#parseBooleanIgnoreCase(String)}) and duration, so the typed
+ * getters are a table lookup that returns a primitive, with no parsing and no boxing.
+ *
+ * A duration is a whole number followed by an optional unit: ms (the default), s, m, h or d.
+ * @author nwh02
+ *
+ */
+public final class CompactProperties {
+
+	static final byte INT = 1;
+	static final byte LONG = 2;
+	static final byte BOOLEAN = 4;
+	static final byte TRUE = 8;
+	static final byte DURATION = 16;
+
+	private final String[] keys;
+	private final String[] values;
+	private final long[] numbers;
+	private final long[] durations;
+	private final byte[] types;
+	private final int mask;
+	private final int size;
+
+	private CompactProperties(List<String> keyList, List<String> valueList) {
+		int capacity = Integer.highestOneBit(Math.max(4, keyList.size() * 2 - 1)) << 1;
+		this.keys = new String[capacity];
+		this.values = new String[capacity];
+		this.numbers = new long[capacity];
+		this.durations = new long[capacity];
+		this.types = new byte[capacity];
+		this.mask = capacity - 1;
+		int count = 0;
+		for (int i = 0; i < keyList.size(); i++) {
+			String key = keyList.get(i);
+			int slot = slot(key);
+			if (keys[slot] == null) {
+				keys[slot] = key;
+				count++;
+			}
+			/* Later entries replace earlier ones, as in Properties. */
+			values[slot] = valueList.get(i);
+			types[slot] = parseTypes(values[slot], numbers, durations, slot);
+		}
+		this.size = count;
+	}
+
+	/**
+	 * Reads and parses a properties file.
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException on a malformed \\uXXXX escape, like Properties.
+	 */
+	public static CompactProperties load(Path path) throws IOException {
+		return parse(Files.readAllBytes(path));
+	}
+
+	/**
+	 * Parses the ISO-8859-1 bytes of a properties file.
+	 * @param bytes
+	 * @return
+	 * @throws IllegalArgumentException on a malformed \\uXXXX escape, like Properties.
+	 */
+	public static CompactProperties parse(byte[] bytes) {
+		List<String> keyList = new ArrayList<>();
+		List<String> valueList = new ArrayList<>();
+		parseEntries(bytes, keyList, valueList);
+		return of(keyList, valueList);
+	}
+
+	/**
+	 * Appends the entries of a properties file to the lists, in file order.
+	 */
+	static void parseEntries(byte[] bytes, List<String> keyList, List<String> valueList) {
+		new Parser(bytes).parse(keyList, valueList);
+	}
+
+	/**
+	 * Builds the table from parallel lists of keys and values.  A later entry replaces an earlier one with the same key.
+	 */
+	static CompactProperties of(List<String> keyList, List<String> valueList) {
+		return new CompactProperties(keyList, valueList);
+	}
+
+	/** @return the number of keys. */
+	public int size() {
+		return size;
+	}
+
+	/** @return the value, or null. */
+	public String getString(String key) {
+		int slot = find(key);
+		return slot < 0 ? null : values[slot];
+	}
+
+	/** @return the value, or defaultValue if the key is missing or not an int. */
+	public int getInt(String key, int defaultValue) {
+		int slot = find(key);
+		return slot >= 0 && (types[slot] & INT) != 0 ? (int) numbers[slot] : defaultValue;
+	}
+
+	/** @return the value, or defaultValue if the key is missing or not a long. */
+	public long getLong(String key, long defaultValue) {
+		int slot = find(key);
+		return slot >= 0 && (types[slot] & LONG) != 0 ? numbers[slot] : defaultValue;
+	}
+
+	/** @return the value, or defaultValue if the key is missing or not true, yes, false or no (ignoring case). */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		int slot = find(key);
+		return slot >= 0 && (types[slot] & BOOLEAN) != 0 ? (types[slot] & TRUE) != 0 : defaultValue;
+	}
+
+	/** @return the value in milliseconds, or defaultMillis if the key is missing or not a duration. */
+	public long getDurationMillis(String key, long defaultMillis) {
+		int slot = find(key);
+		return slot >= 0 && (types[slot] & DURATION) != 0 ? durations[slot] : defaultMillis;
+	}
+
+	private int find(String key) {
+		for (int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot].equals(key)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/** @return the slot holding key, or the empty slot where it belongs. */
+	private int slot(String key) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != null && !keys[slot].equals(key)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Parses a value as every type at once.  Nothing is thrown and, unless the value has surrounding
+	 * whitespace, nothing is allocated, so ordinary string values cost no more than a scan.
+	 * @return the type flags of value.  The number and duration are stored at index in the arrays.
+	 */
+	static byte parseTypes(String value, long[] numbers, long[] durations, int index) {
+		int start = 0;
+		int end = value.length();
+		/* the whitespace String.trim removes */
+		while (start < end && value.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && value.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		byte type = 0;
+		if (parseLong(value, start, end, numbers, index)) {
+			type |= LONG;
+			if (numbers[index] >= 0) {
+				durations[index] = numbers[index];
+				type |= DURATION;
+			}
+			if (numbers[index] == (int) numbers[index]) {
+				type |= INT;
+			}
+		} else {
+			long duration = parseDuration(value, start, end);
+			if (duration >= 0) {
+				durations[index] = duration;
+				type |= DURATION;
+			}
+		}
+		CharSequence trimmed = start == 0 && end == value.length() ? value : value.subSequence(start, end);
+		switch (SwitchStatementWithStringExample.parseBoolIgnoreCase(trimmed)) {
+		case TRUE:
+			type |= BOOLEAN | TRUE;
+			break;
+		case FALSE:
+			type |= BOOLEAN;
+			break;
+		default:
+			/* not a boolean */
+		}
+		return type;
+	}
+
+	/**
+	 * The decimal numbers {@link Long#parseLong(String)} accepts, in ASCII, without throwing.
+	 * @return false if value[start, end) is not a long, in which case numbers[index] is unchanged.
+	 */
+	private static boolean parseLong(String value, int start, int end, long[] numbers, int index) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+			negative = value.charAt(i) == '-';
+			i++;
+		}
+		if (i == end) {
+			return false;
+		}
+		/* accumulated negatively, so that Long.MIN_VALUE fits */
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long result = 0;
+		for (; i < end; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit) {
+				return false;
+			}
+			result = result * 10 - digit;
+		}
+		numbers[index] = negative ? result : -result;
+		return true;
+	}
+
+	/** @return the duration in milliseconds, or -1 if value[start, end) is not a duration with a unit. */
+	static long parseDuration(String value, int start, int end) {
+		long amount = 0;
+		int unitStart = start;
+		while (unitStart < end && value.charAt(unitStart) >= '0' && value.charAt(unitStart) <= '9') {
+			amount = amount * 10 + (value.charAt(unitStart) - '0');
+			unitStart++;
+		}
+		if (unitStart == start || unitStart - start > 18) {
+			return -1;
+		}
+		while (unitStart < end && value.charAt(unitStart) <= ' ') {
+			unitStart++;
+		}
+		long millisPerUnit;
+		if (isUnit(value, unitStart, end, "ms")) {
+			millisPerUnit = 1;
+		} else if (isUnit(value, unitStart, end, "s")) {
+			millisPerUnit = 1000;
+		} else if (isUnit(value, unitStart, end, "m")) {
+			millisPerUnit = 60 * 1000;
+		} else if (isUnit(value, unitStart, end, "h")) {
+			millisPerUnit = 60 * 60 * 1000;
+		} else if (isUnit(value, unitStart, end, "d")) {
+			millisPerUnit = 24 * 60 * 60 * 1000;
+		} else {
+			return -1;
+		}
+		return amount > Long.MAX_VALUE / millisPerUnit ? -1 : amount * millisPerUnit;
+	}
+
+	private static boolean isUnit(String value, int start, int end, String unit) {
+		return end - start == unit.length() && value.regionMatches(start, unit, 0, unit.length());
+	}
+
+	/**
+	 * The line grammar of {@link java.util.Properties#load(java.io.Reader)}, over bytes.
+	 */
+	private static final class Parser {
+		private final byte[] bytes;
+		private int position;
+		private char[] chars = new char[128];
+		private int length;
+
+		Parser(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		void parse(List<String> keyList, List<String> valueList) {
+			while (skipToLogicalLine()) {
+				length = 0;
+				boolean hasSeparator = readKey();
+				String key = new String(chars, 0, length);
+				skipWhitespace();
+				if (!hasSeparator && position < bytes.length && (bytes[position] == '=' || bytes[position] == ':')) {
+					position++;
+					skipWhitespace();
+				}
+				length = 0;
+				readValue();
+				keyList.add(key);
+				valueList.add(new String(chars, 0, length));
+			}
+		}
+
+		/** Skips blank lines and comments.  @return false at the end of the input. */
+		private boolean skipToLogicalLine() {
+			while (position < bytes.length) {
+				byte b = bytes[position];
+				if (b == ' ' || b == '\t' || b == '\f' || b == '\r' || b == '\n') {
+					position++;
+				} else if (b == '#' || b == '!') {
+					while (position < bytes.length && bytes[position] != '\n' && bytes[position] != '\r') {
+						position++;
+					}
+				} else {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void skipWhitespace() {
+			while (position < bytes.length && (bytes[position] == ' ' || bytes[position] == '\t' || bytes[position] == '\f')) {
+				position++;
+			}
+		}
+
+		/** @return true if the key ended at '=' or ':', which has been consumed. */
+		private boolean readKey() {
+			while (position < bytes.length) {
+				char c = (char) (bytes[position] & 0xff);
+				if (c == '=' || c == ':') {
+					position++;
+					return true;
+				} else if (c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n') {
+					return false;
+				} else if (c == '\\') {
+					if (!escape()) {
+						return false;
+					}
+				} else {
+					append(c);
+					position++;
+				}
+			}
+			return false;
+		}
+
+		private void readValue() {
+			while (position < bytes.length) {
+				char c = (char) (bytes[position] & 0xff);
+				if (c == '\r' || c == '\n') {
+					return;
+				} else if (c == '\\') {
+					if (!escape()) {
+						return;
+					}
+				} else {
+					append(c);
+					position++;
+				}
+			}
+		}
+
+		/**
+		 * Handles the backslash at position.
+		 * @return false if it ended the input.
+		 */
+		private boolean escape() {
+			position++;
+			if (position == bytes.length) {
+				return false;
+			}
+			char c = (char) (bytes[position++] & 0xff);
+			switch (c) {
+			case '\r':
+			case '\n':
+				/* Continuation line: drop the terminator and the next line's leading whitespace. */
+				if (c == '\r' && position < bytes.length && bytes[position] == '\n') {
+					position++;
+				}
+				skipWhitespace();
+				return true;
+			case 't':
+				append('\t');
+				return true;
+			case 'n':
+				append('\n');
+				return true;
+			case 'r':
+				append('\r');
+				return true;
+			case 'f':
+				append('\f');
+				return true;
+			case 'u':
+				if (position + 4 > bytes.length) {
+					throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+				}
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = Character.digit((char) (bytes[position++] & 0xff), 16);
+					if (digit < 0) {
+						throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+					}
+					value = value << 4 | digit;
+				}
+				append((char) value);
+				return true;
+			default:
+				append(c);
+				return true;
+			}
+		}
+
+		private void append(char c) {
+			if (length == chars.length) {
+				char[] bigger = new char[chars.length * 2];
+				System.arraycopy(chars, 0, bigger, 0, length);
+				chars = bigger;
+			}
+			chars[length++] = c;
+		}
+	}
+}
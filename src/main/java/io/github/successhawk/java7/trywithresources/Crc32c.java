@@ -0,0 +1,71 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli), the checksum used by iSCSI, ext4 and most storage formats.
+ *
+ * Java 7 only ships CRC32 and Adler32, so this is a plain table driven implementation that processes
+ * eight bytes per step ("slicing-by-8").
+ * @author nwh02
+ *
+ */
+public final class Crc32c implements Checksum {
+
+	/** Reversed Castagnoli polynomial. */
+	private static final int POLYNOMIAL = 0x82F63B78;
+
+	private static final int[][] TABLES = new int[8][256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			int crc = i;
+			for (int bit = 0; bit < 8; bit++) {
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+			}
+			TABLES[0][i] = crc;
+		}
+		for (int i = 0; i < 256; i++) {
+			for (int table = 1; table < 8; table++) {
+				int previous = TABLES[table - 1][i];
+				TABLES[table][i] = (previous >>> 8) ^ TABLES[0][previous & 0xff];
+			}
+		}
+	}
+
+	private int crc = 0xffffffff;
+
+	@Override
+	public void update(int b) {
+		crc = (crc >>> 8) ^ TABLES[0][(crc ^ b) & 0xff];
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		if (off < 0 || len < 0 || off > b.length - len) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+		int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+		int c = crc;
+		for (; len >= 8; off += 8, len -= 8) {
+			c ^= (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+			c = t7[c & 0xff] ^ t6[(c >>> 8) & 0xff] ^ t5[(c >>> 16) & 0xff] ^ t4[c >>> 24]
+					^ t3[b[off + 4] & 0xff] ^ t2[b[off + 5] & 0xff] ^ t1[b[off + 6] & 0xff] ^ t0[b[off + 7] & 0xff];
+		}
+		for (; len > 0; off++, len--) {
+			c = (c >>> 8) ^ t0[(c ^ b[off]) & 0xff];
+		}
+		crc = c;
+	}
+
+	@Override
+	public long getValue() {
+		return ~crc & 0xffffffffL;
+	}
+
+	@Override
+	public void reset() {
+		crc = 0xffffffff;
+	}
+}
@@ -0,0 +1,208 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the lines appended to files since the last time they were read, like {@code tail -f}.
+ *
+ * The byte offset just after the last complete line is remembered per file, so every poll reads only
+ * new data.  A line is complete once its '\n' has been written; a trailing "\r" is dropped.  When a file
+ * becomes shorter than the remembered offset (truncated) or is replaced by a different file (rotated)
+ * it is read again from the start.  Lines appended to the old file after the last poll are not seen.
+ *
+ * Not thread safe.
+ * @author nwh02
+ *
+ */
+public final class FileFollower implements AutoCloseable {
+
+	private final Charset charset;
+	private final Map<Path, Position> positions = new LinkedHashMap<>();
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+	private WatchService watchService;
+
+	/**
+	 * @param charset of the followed files.
+	 */
+	public FileFollower(Charset charset) {
+		FirstLineReader.checkCharset(charset);
+		this.charset = charset;
+	}
+
+	/**
+	 * Starts following the file.  Following a file twice has no effect.
+	 * @param path the file, which does not have to exist yet.
+	 * @param fromEnd true to skip what is already in the file.
+	 * @throws IOException if the file's directory can not be watched.
+	 */
+	public void follow(Path path, boolean fromEnd) throws IOException {
+		path = path.toAbsolutePath();
+		if (positions.containsKey(path)) {
+			return;
+		}
+		Position position = new Position();
+		if (fromEnd && Files.exists(path)) {
+			BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			position.fileKey = attributes.fileKey();
+			position.offset = attributes.size();
+		}
+		positions.put(path, position);
+		if (watchService == null) {
+			watchService = path.getFileSystem().newWatchService();
+		}
+		Path directory = path.getParent();
+		if (!directories.containsValue(directory)) {
+			directories.put(directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY), directory);
+		}
+	}
+
+	/**
+	 * Returns the complete lines appended to the file since the last poll.
+	 * A file that is not followed yet is followed from its start.
+	 * @param path
+	 * @return the new lines, empty if there are none or the file does not exist right now.
+	 * @throws IOException
+	 */
+	public List<String> poll(Path path) throws IOException {
+		path = path.toAbsolutePath();
+		Position position = positions.get(path);
+		if (position == null) {
+			follow(path, false);
+			position = positions.get(path);
+		}
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			/* Rotated away and not yet recreated. */
+			return Collections.emptyList();
+		}
+		Object fileKey = attributes.fileKey();
+		if (attributes.size() < position.offset
+				|| (fileKey != null && position.fileKey != null && !fileKey.equals(position.fileKey))) {
+			position.offset = 0;
+		}
+		position.fileKey = fileKey;
+		if (attributes.size() == position.offset) {
+			return Collections.emptyList();
+		}
+		return readLines(path, position);
+	}
+
+	/**
+	 * Waits until at least one followed file changes, then polls the changed files.
+	 * @param timeout
+	 * @param unit
+	 * @return the new lines of every file that has any, empty if the timeout expired.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public Map<Path, List<String>> awaitLines(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+		Map<Path, List<String>> result = new LinkedHashMap<>();
+		if (watchService == null) {
+			return result;
+		}
+		Set<Path> changed = new LinkedHashSet<>();
+		for (WatchKey key = watchService.poll(timeout, unit); key != null; key = watchService.poll()) {
+			Path directory = directories.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					changed.addAll(positions.keySet());
+				} else {
+					Path file = directory.resolve((Path) event.context());
+					if (positions.containsKey(file)) {
+						changed.add(file);
+					}
+				}
+			}
+			key.reset();
+		}
+		for (Path path : changed) {
+			List<String> lines = poll(path);
+			if (!lines.isEmpty()) {
+				result.put(path, lines);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the offset of the next unread byte of the file, or -1 if it is not followed.
+	 */
+	public long getOffset(Path path) {
+		Position position = positions.get(path.toAbsolutePath());
+		return position == null ? -1 : position.offset;
+	}
+
+	private List<String> readLines(Path path, Position position) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long end = channel.size();
+			long lineStart = position.offset;
+			long readPosition = position.offset;
+			byte[] buffer = new byte[8192];
+			int length = 0;
+			while (readPosition < end) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				int read = channel.read(ByteBuffer.wrap(buffer, length,
+						(int) Math.min(buffer.length - length, end - readPosition)), readPosition);
+				if (read <= 0) {
+					break;
+				}
+				int scanFrom = length;
+				length += read;
+				readPosition += read;
+				int start = 0;
+				for (int i = scanFrom; i < length; i++) {
+					if (buffer[i] == '\n') {
+						int lineEnd = i > start && buffer[i - 1] == '\r' ? i - 1 : i;
+						lines.add(new String(buffer, start, lineEnd - start, charset));
+						start = i + 1;
+					}
+				}
+				System.arraycopy(buffer, start, buffer, 0, length - start);
+				length -= start;
+				lineStart += start;
+			}
+			position.offset = lineStart;
+		}
+		return lines;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (watchService != null) {
+			watchService.close();
+		}
+	}
+
+	private static final class Position {
+		long offset;
+		Object fileKey;
+	}
+}
@@ -0,0 +1,205 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reads the first line of many files with a fixed number of worker threads.
+ *
+ * Each worker pulls the next path from a shared index, so no task object is created per file and at
+ * most {@code concurrency} files are open at any time.  A failure on one file is recorded in the result
+ * and the batch carries on.
+ *
+ * Close the reader to stop its threads:
+ * <pre>
+ * try (FirstLineBatchReader reader = new FirstLineBatchReader(16, StandardCharsets.UTF_8)) {
+ *     FirstLineBatchReader.Result result = reader.readAll(dir, "*.csv");
+ * }
+ * </pre>
+ * @author nwh02
+ *
+ */
+public final class FirstLineBatchReader implements AutoCloseable {
+
+	private static final Logger logger = Logger
+			.getLogger(FirstLineBatchReader.class);
+
+	private final int concurrency;
+	private final LineSource source;
+	private final ExecutorService executor;
+
+	/**
+	 * @param concurrency number of files read at the same time.  Tune this to the disk, not the CPU count.
+	 * @param charset used to decode the lines.
+	 */
+	public FirstLineBatchReader(int concurrency, Charset charset) {
+		this(concurrency, lineSource(charset));
+	}
+
+	/* Reads with the given source, which tests use to watch the reads. */
+	FirstLineBatchReader(int concurrency, LineSource source) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("concurrency (" + concurrency + ") must be at least 1.");
+		}
+		this.concurrency = concurrency;
+		this.source = source;
+		this.executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "first-line-reader-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Reads the first line of every file in the directory whose name matches the glob.
+	 * @param directory
+	 * @param glob as described by {@link java.nio.file.FileSystem#getPathMatcher(String)}, without the "glob:" prefix.
+	 * @return
+	 * @throws IOException if the directory can not be listed.
+	 * @throws InterruptedException
+	 */
+	public Result readAll(Path directory, String glob) throws IOException, InterruptedException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+			for (Path path : stream) {
+				if (Files.isRegularFile(path)) {
+					paths.add(path);
+				}
+			}
+		}
+		return readAll(paths);
+	}
+
+	/**
+	 * Reads the first line of every given file.
+	 * @param paths
+	 * @return the lines and the failures.  Every path ends up in exactly one of them; if the workers are
+	 * interrupted, for example by close(), the paths they had not read yet are failures with an
+	 * InterruptedIOException.
+	 * @throws InterruptedException
+	 */
+	public Result readAll(Collection<Path> paths) throws InterruptedException {
+		final Path[] work = paths.toArray(new Path[paths.size()]);
+		final AtomicInteger next = new AtomicInteger();
+		int workers = Math.min(concurrency, work.length);
+		List<Future<Result>> futures = new ArrayList<>(workers);
+		for (int i = 0; i < workers; i++) {
+			futures.add(executor.submit(new Callable<Result>() {
+				@Override
+				public Result call() {
+					Result partial = new Result();
+					for (int index = next.getAndIncrement(); index < work.length; index = next.getAndIncrement()) {
+						Path path = work[index];
+						try {
+							partial.lines.put(path, source.readFirstLine(path));
+						} catch (IOException e) {
+							partial.failures.put(path, e);
+						}
+						if (Thread.currentThread().isInterrupted()) {
+							for (index = next.getAndIncrement(); index < work.length; index = next.getAndIncrement()) {
+								partial.failures.put(work[index], new InterruptedIOException("interrupted before reading " + work[index]));
+							}
+						}
+					}
+					return partial;
+				}
+			}));
+		}
+		Result result = new Result();
+		try {
+			for (Future<Result> future : futures) {
+				Result partial;
+				try {
+					partial = future.get();
+				} catch (CancellationException e) {
+					/* close() took it off the queue before it ran */
+					continue;
+				}
+				result.lines.putAll(partial.lines);
+				result.failures.putAll(partial.failures);
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("first line worker failed", e.getCause());
+		} catch (InterruptedException e) {
+			for (Future<Result> future : futures) {
+				future.cancel(true);
+			}
+			throw e;
+		}
+		/* Every worker has finished, so paths nobody claimed were left by workers that never ran. */
+		for (int index = next.getAndIncrement(); index < work.length; index = next.getAndIncrement()) {
+			result.failures.put(work[index], new InterruptedIOException("closed before reading " + work[index]));
+		}
+		if (!result.failures.isEmpty()) {
+			logger.debug(result.failures.size() + " of " + work.length + " files could not be read.");
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the threads.  Batches that are being read return at once, with the paths not read yet as failures.
+	 */
+	@Override
+	public void close() {
+		for (Runnable queued : executor.shutdownNow()) {
+			((Future<?>) queued).cancel(false);
+		}
+	}
+
+	interface LineSource {
+		String readFirstLine(Path path) throws IOException;
+	}
+
+	static LineSource lineSource(final Charset charset) {
+		FirstLineReader.checkCharset(charset);
+		return new LineSource() {
+			@Override
+			public String readFirstLine(Path path) throws IOException {
+				return FirstLineReader.readFirstLine(path, charset);
+			}
+		};
+	}
+
+	/**
+	 * Outcome of a batch.  Files that are empty map to a null line.
+	 */
+	public static final class Result {
+		private final Map<Path, String> lines = new HashMap<>();
+		private final Map<Path, IOException> failures = new HashMap<>();
+
+		/** @return path to first line of every file that was read. */
+		public Map<Path, String> getLines() {
+			return Collections.unmodifiableMap(lines);
+		}
+
+		/** @return path to the exception of every file that could not be read. */
+		public Map<Path, IOException> getFailures() {
+			return Collections.unmodifiableMap(failures);
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the first line of files, least recently used entries are evicted first.
+ *
+ * An entry is only used while the file still has the size and last modified time it had when the line
+ * was read, so a hit costs one stat of the file and never an open.  A change that keeps both the size and
+ * the modification time (within the file system's timestamp resolution) is not noticed.
+ *
+ * When several threads miss on the same file at once only one of them reads it; the others wait for that
+ * read and share its result.
+ * @author nwh02
+ *
+ */
+public final class FirstLineCache {
+
+	private final FirstLineBatchReader.LineSource source;
+	private final Map<Path, CachedLine> entries;
+	private final ConcurrentMap<Path, FutureTask<CachedLine>> loading = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maximumSize number of files to remember.
+	 * @param charset used to decode the lines.
+	 */
+	public FirstLineCache(int maximumSize, Charset charset) {
+		this(maximumSize, FirstLineBatchReader.lineSource(charset));
+	}
+
+	/* Reads with the given source, which tests use to count the reads. */
+	FirstLineCache(final int maximumSize, FirstLineBatchReader.LineSource source) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximumSize (" + maximumSize + ") must be at least 1.");
+		}
+		this.source = source;
+		this.entries = new LinkedHashMap<Path, CachedLine>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, CachedLine> eldest) {
+				if (size() > maximumSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the first line of the file, reading it only if it is not cached or has changed.
+	 * @param path
+	 * @return the first line, or null if the file is empty.
+	 * @throws IOException if the file can not be read.  Nothing is cached in that case.
+	 */
+	public String get(final Path path) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		CachedLine entry;
+		synchronized (entries) {
+			entry = entries.get(path);
+		}
+		if (entry != null && entry.matches(attributes)) {
+			hits.incrementAndGet();
+			return entry.line;
+		}
+		misses.incrementAndGet();
+
+		FutureTask<CachedLine> task = new FutureTask<>(new Callable<CachedLine>() {
+			@Override
+			public CachedLine call() throws IOException {
+				/* The attributes are from before the read, so a change during the read is seen next time. */
+				CachedLine loaded = new CachedLine(source.readFirstLine(path), attributes);
+				synchronized (entries) {
+					entries.put(path, loaded);
+				}
+				return loaded;
+			}
+		});
+		FutureTask<CachedLine> inFlight = loading.putIfAbsent(path, task);
+		if (inFlight == null) {
+			inFlight = task;
+			try {
+				task.run();
+			} finally {
+				loading.remove(path, task);
+			}
+		}
+		return await(inFlight).line;
+	}
+
+	private static CachedLine await(FutureTask<CachedLine> task) throws IOException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/** Forgets the file. */
+	public void invalidate(Path path) {
+		synchronized (entries) {
+			entries.remove(path);
+		}
+	}
+
+	/** Forgets all files. */
+	public void invalidateAll() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/** @return number of cached files. */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/** @return number of calls answered from the cache. */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/** @return number of calls that were not cached or found the file changed. */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/** @return number of entries dropped because the cache was full. */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	private static final class CachedLine {
+		final String line;
+		final long size;
+		final long lastModified;
+
+		CachedLine(String line, BasicFileAttributes attributes) {
+			this.line = line;
+			this.size = attributes.size();
+			this.lastModified = attributes.lastModifiedTime().toMillis();
+		}
+
+		boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+}
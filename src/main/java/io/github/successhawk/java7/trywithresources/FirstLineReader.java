@@ -0,0 +1,185 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the first line of a file without a BufferedReader.
+ *
+ * The bytes are read through a FileChannel into a small per-thread buffer, the line terminator is found
+ * by scanning the raw bytes, and only the bytes in front of it are decoded.  For a typical header line
+ * this is a single read() and no buffer allocation.  The buffer only grows when the first line is
+ * longer than one block.
+ *
+ * The charset must encode '\n' and '\r' as the single bytes 10 and 13 and never use those bytes inside
+ * another character (UTF-8, ISO-8859-1, US-ASCII and most single byte charsets do).
+ *
+ * @author nwh02
+ *
+ */
+public final class FirstLineReader {
+
+	/** Size of the first read.  Big enough for nearly every header line. */
+	static final int BLOCK_SIZE = 512;
+
+	/** Grown buffers above this size are not kept for the next call. */
+	private static final int MAX_POOLED_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BLOCK_SIZE];
+		}
+	};
+
+	private static final int GZIP_MAGIC = 0x1f8b;
+	private static final int ZSTD_MAGIC = 0x28b52ffd;
+
+	private FirstLineReader() {
+	}
+
+	/**
+	 * Reads the first line of the file with the same rules as {@link java.io.BufferedReader#readLine()}:
+	 * a line ends at '\n', '\r' or "\r\n", and the terminator is not returned.
+	 * @param path
+	 * @param charset used to decode the line.
+	 * @return the first line, or null if the file is empty.
+	 * @throws IOException
+	 * @throws IllegalArgumentException if the charset is not byte compatible with ASCII line terminators.
+	 */
+	public static String readFirstLine(Path path, Charset charset) throws IOException {
+		checkCharset(charset);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return readFirstLine(channel, charset);
+		}
+	}
+
+	/**
+	 * Reads the first line from the channel's current position.
+	 * The channel is left open and positioned somewhere after the line.
+	 * @param channel
+	 * @param charset
+	 * @return the first line, or null if the channel is already at its end.
+	 * @throws IOException
+	 */
+	static String readFirstLine(FileChannel channel, Charset charset) throws IOException {
+		byte[] bytes = BUFFER.get();
+		int length = 0;
+		int scanned = 0;
+		while (true) {
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			int read = channel.read(ByteBuffer.wrap(bytes, length, bytes.length - length));
+			if (read < 0) {
+				break;
+			}
+			length += read;
+			int end = indexOfLineTerminator(bytes, scanned, length);
+			if (end >= 0) {
+				return decode(bytes, end, charset);
+			}
+			scanned = length;
+		}
+		return length == 0 ? null : decode(bytes, length, charset);
+	}
+
+	/**
+	 * Reads the first line of a file that may be compressed.  The format is detected from the first bytes,
+	 * not the file name.  A gzip file is only inflated as far as the end of the first line, so the cost does
+	 * not depend on the size of the file.
+	 * @param path
+	 * @param charset used to decode the uncompressed line.
+	 * @return the first line, or null if the (uncompressed) file is empty.
+	 * @throws IOException if the file can not be read, or is zstd compressed, which the JDK can not inflate.
+	 */
+	public static String readFirstLineDecompressing(Path path, Charset charset) throws IOException {
+		checkCharset(charset);
+		try (PushbackInputStream in = new PushbackInputStream(Files.newInputStream(path), 4)) {
+			byte[] magic = new byte[4];
+			int length = 0;
+			for (int read = 0; length < magic.length && read >= 0; length += read) {
+				read = in.read(magic, length, magic.length - length);
+				if (read < 0) {
+					break;
+				}
+			}
+			in.unread(magic, 0, length);
+			if (length >= 2 && ((magic[0] & 0xff) << 8 | (magic[1] & 0xff)) == GZIP_MAGIC) {
+				return readFirstLine(new GZIPInputStream(in, BLOCK_SIZE), charset);
+			}
+			if (length == 4 && ByteBuffer.wrap(magic).getInt() == ZSTD_MAGIC) {
+				throw new IOException(path + " is zstd compressed, which is not supported.");
+			}
+			return readFirstLine(in, charset);
+		}
+	}
+
+	/**
+	 * Reads the first line from the stream, reading no further than the block that contains its end.
+	 * The stream is not closed.
+	 */
+	static String readFirstLine(InputStream in, Charset charset) throws IOException {
+		byte[] bytes = BUFFER.get();
+		int length = 0;
+		while (true) {
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			int read = in.read(bytes, length, bytes.length - length);
+			if (read < 0) {
+				break;
+			}
+			int end = indexOfLineTerminator(bytes, length, length + read);
+			length += read;
+			if (end >= 0) {
+				return decode(bytes, end, charset);
+			}
+		}
+		return length == 0 ? null : decode(bytes, length, charset);
+	}
+
+	/**
+	 * @return the index of the first '\n' or '\r' in bytes[from, to), or -1.
+	 */
+	static int indexOfLineTerminator(byte[] bytes, int from, int to) {
+		for (int i = from; i < to; i++) {
+			byte b = bytes[i];
+			if (b == '\n' || b == '\r') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String decode(byte[] bytes, int length, Charset charset) {
+		String line = new String(bytes, 0, length, charset);
+		if (bytes.length != BLOCK_SIZE && bytes.length <= MAX_POOLED_SIZE) {
+			BUFFER.set(bytes);
+		}
+		return line;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if line terminators are not the plain ASCII bytes in the charset.
+	 */
+	static void checkCharset(Charset charset) {
+		if (charset == StandardCharsets.UTF_8 || charset == StandardCharsets.ISO_8859_1
+				|| charset == StandardCharsets.US_ASCII) {
+			return;
+		}
+		if (!Arrays.equals(new byte[] { '\r', '\n' }, "\r\n".getBytes(charset))) {
+			throw new IllegalArgumentException("charset (" + charset + ") does not encode line terminators as single bytes.");
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Publishes fully written temporary files under their final names, sharing the cost of making the
+ * rename durable between concurrent callers.
+ *
+ * Each caller syncs the data of its own temporary file and then calls {@link #commit(Path, Path)}.
+ * A single committer thread collects commits until {@code maxBatch} are waiting or {@code maxDelay} has
+ * passed since the first one, renames them all atomically and then syncs each affected directory once.
+ * When commit returns the file is durable under its final name.
+ *
+ * Directory syncs are not possible on every platform (Windows can not open a directory); there the
+ * rename is only as durable as the file system makes it on its own.
+ * @author nwh02
+ *
+ */
+public final class GroupCommitter implements AutoCloseable {
+
+	private static final Logger logger = Logger
+			.getLogger(GroupCommitter.class);
+
+	/** Tells the committer thread to stop.  Compared by identity. */
+	private static final Commit STOP = new Commit(null, null);
+
+	private final long maxDelayNanos;
+	private final int maxBatch;
+	private final BlockingQueue<Commit> queue = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	/* Guards closed so that STOP is always the last thing queued. */
+	private final Object lock = new Object();
+	private boolean closed;
+
+	/**
+	 * @param maxDelay longest time a commit waits for others to join its batch.
+	 * @param unit of maxDelay.
+	 * @param maxBatch largest number of commits in one batch.
+	 */
+	public GroupCommitter(long maxDelay, TimeUnit unit, int maxBatch) {
+		if (maxDelay < 0 || maxBatch < 1) {
+			throw new IllegalArgumentException("maxDelay (" + maxDelay + ") must not be negative and maxBatch (" + maxBatch + ") must be at least 1.");
+		}
+		this.maxDelayNanos = unit.toNanos(maxDelay);
+		this.maxBatch = maxBatch;
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				commitBatches();
+			}
+		}, "group-committer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Atomically replaces target with temp and waits until that is durable.
+	 * @param temp a file whose contents were already forced to disk, in the same directory as target.
+	 * @param target
+	 * @throws IOException if the rename failed.  temp is left in place.
+	 * @throws IllegalStateException if the committer is closed.
+	 */
+	public void commit(Path temp, Path target) throws IOException {
+		Commit commit = new Commit(temp, target.toAbsolutePath());
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("GroupCommitter is closed.");
+			}
+			queue.add(commit);
+		}
+		commit.await();
+	}
+
+	/**
+	 * Commits everything already queued, then stops the committer thread.
+	 */
+	@Override
+	public void close() {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queue.add(STOP);
+		}
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void commitBatches() {
+		List<Commit> batch = new ArrayList<>(maxBatch);
+		boolean stopping = false;
+		while (!stopping) {
+			batch.clear();
+			try {
+				Commit first = queue.take();
+				if (first == STOP) {
+					break;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + maxDelayNanos;
+				while (batch.size() < maxBatch) {
+					Commit next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					} else if (next == STOP) {
+						stopping = true;
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				/* Only close() stops this thread, and it does so with STOP. */
+			}
+			commitBatch(batch);
+		}
+	}
+
+	private static void commitBatch(List<Commit> batch) {
+		Set<Path> directories = new LinkedHashSet<>();
+		for (Commit commit : batch) {
+			try {
+				Files.move(commit.temp, commit.target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				directories.add(commit.target.getParent());
+			} catch (IOException | RuntimeException e) {
+				commit.failure = e;
+			}
+		}
+		for (Path directory : directories) {
+			syncDirectory(directory);
+		}
+		for (Commit commit : batch) {
+			commit.done.countDown();
+		}
+	}
+
+	/**
+	 * Creates an empty temporary file next to target, to be written and then committed over it.  Unlike
+	 * Files.createTempFile, which makes the file, and so the target, readable by the owner only, it gets the
+	 * existing target's permissions, or the umask defaults of any new file.
+	 * @param target
+	 * @return the temporary file.
+	 * @throws IOException
+	 */
+	static Path createTempSibling(Path target) throws IOException {
+		for (;;) {
+			Path temp = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+			try {
+				Files.createFile(temp);
+			} catch (FileAlreadyExistsException e) {
+				continue;
+			}
+			try {
+				if (Files.exists(target) && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+					Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+				}
+			} catch (IOException | RuntimeException e) {
+				Files.deleteIfExists(temp);
+				throw e;
+			}
+			return temp;
+		}
+	}
+
+	/** Makes renames in the directory durable, where the platform allows it. */
+	static void syncDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			logger.debug("Could not sync directory " + directory + " " + e);
+		}
+	}
+
+	private static final class Commit {
+		final Path temp;
+		final Path target;
+		final CountDownLatch done = new CountDownLatch(1);
+		/* Written by the committer thread before done is counted down. */
+		Exception failure;
+
+		Commit(Path temp, Path target) {
+			this.temp = temp;
+			this.target = target;
+		}
+
+		void await() throws IOException {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					done.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure instanceof IOException) {
+				throw (IOException) failure;
+			} else if (failure != null) {
+				throw (RuntimeException) failure;
+			}
+		}
+	}
+}
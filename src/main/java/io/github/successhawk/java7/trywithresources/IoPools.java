@@ -0,0 +1,116 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared {@link ObjectPool}s of the buffers, encoders and decoders a reader or writer would otherwise
+ * allocate per call.  Buffers hold {@value #BUFFER_SIZE} bytes or chars, as BufferedReader does.
+ *
+ * Encoders and decoders replace malformed and unmappable input, as FileReader and FileWriter do.
+ * @author nwh02
+ *
+ */
+public final class IoPools {
+
+	public static final int BUFFER_SIZE = 8192;
+
+	private static final int LOCAL_CAPACITY = 4;
+	private static final int SHARED_CAPACITY = 256;
+
+	private static final ObjectPool<ByteBuffer> BYTE_BUFFERS = new ObjectPool<>(new ObjectPool.Factory<ByteBuffer>() {
+		@Override
+		public ByteBuffer create() {
+			return ByteBuffer.allocate(BUFFER_SIZE);
+		}
+
+		@Override
+		public void reset(ByteBuffer buffer) {
+			buffer.clear();
+		}
+	}, LOCAL_CAPACITY, SHARED_CAPACITY);
+
+	private static final ObjectPool<CharBuffer> CHAR_BUFFERS = new ObjectPool<>(new ObjectPool.Factory<CharBuffer>() {
+		@Override
+		public CharBuffer create() {
+			return CharBuffer.allocate(BUFFER_SIZE);
+		}
+
+		@Override
+		public void reset(CharBuffer buffer) {
+			buffer.clear();
+		}
+	}, LOCAL_CAPACITY, SHARED_CAPACITY);
+
+	private static final ConcurrentMap<Charset, ObjectPool<CharsetDecoder>> DECODERS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<Charset, ObjectPool<CharsetEncoder>> ENCODERS = new ConcurrentHashMap<>();
+
+	private IoPools() {
+	}
+
+	/** @return the pool of cleared heap byte buffers. */
+	public static ObjectPool<ByteBuffer> byteBuffers() {
+		return BYTE_BUFFERS;
+	}
+
+	/** @return the pool of cleared heap char buffers. */
+	public static ObjectPool<CharBuffer> charBuffers() {
+		return CHAR_BUFFERS;
+	}
+
+	/** @return the pool of reset decoders for the charset. */
+	public static ObjectPool<CharsetDecoder> decoders(final Charset charset) {
+		ObjectPool<CharsetDecoder> pool = DECODERS.get(charset);
+		if (pool == null) {
+			ObjectPool<CharsetDecoder> created = new ObjectPool<>(new ObjectPool.Factory<CharsetDecoder>() {
+				@Override
+				public CharsetDecoder create() {
+					return charset.newDecoder()
+							.onMalformedInput(CodingErrorAction.REPLACE)
+							.onUnmappableCharacter(CodingErrorAction.REPLACE);
+				}
+
+				@Override
+				public void reset(CharsetDecoder decoder) {
+					decoder.reset();
+				}
+			}, LOCAL_CAPACITY, SHARED_CAPACITY);
+			pool = DECODERS.putIfAbsent(charset, created);
+			if (pool == null) {
+				pool = created;
+			}
+		}
+		return pool;
+	}
+
+	/** @return the pool of reset encoders for the charset. */
+	public static ObjectPool<CharsetEncoder> encoders(final Charset charset) {
+		ObjectPool<CharsetEncoder> pool = ENCODERS.get(charset);
+		if (pool == null) {
+			ObjectPool<CharsetEncoder> created = new ObjectPool<>(new ObjectPool.Factory<CharsetEncoder>() {
+				@Override
+				public CharsetEncoder create() {
+					return charset.newEncoder()
+							.onMalformedInput(CodingErrorAction.REPLACE)
+							.onUnmappableCharacter(CodingErrorAction.REPLACE);
+				}
+
+				@Override
+				public void reset(CharsetEncoder encoder) {
+					encoder.reset();
+				}
+			}, LOCAL_CAPACITY, SHARED_CAPACITY);
+			pool = ENCODERS.putIfAbsent(charset, created);
+			if (pool == null) {
+				pool = created;
+			}
+		}
+		return pool;
+	}
+}
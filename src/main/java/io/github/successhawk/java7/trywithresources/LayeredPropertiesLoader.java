@@ -0,0 +1,95 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Loads configuration from an ordered list of properties files, for example defaults, site, host and
+ * tenant overrides, where a later file overrides an earlier one.
+ *
+ * The files are read and parsed in parallel and then resolved once into a single {@link CompactProperties}
+ * table, so a lookup is one probe whatever the number of layers, unlike a chain of
+ * {@code new Properties(defaults)} that is walked on every get.
+ *
+ * A missing file is skipped, as {@link PropertiesLoadExample} falls back to defaults when its file is not
+ * there.  Any other read error fails the load.
+ * @author nwh02
+ *
+ */
+public final class LayeredPropertiesLoader {
+
+	private static final Logger logger = Logger
+			.getLogger(LayeredPropertiesLoader.class);
+
+	private LayeredPropertiesLoader() {
+	}
+
+	/**
+	 * @param layers lowest priority first.
+	 * @param parallelism number of files read at the same time.
+	 * @return the flattened configuration.
+	 * @throws IOException if a file exists but can not be read.
+	 * @throws InterruptedException
+	 */
+	public static CompactProperties load(List<Path> layers, int parallelism) throws IOException, InterruptedException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism (" + parallelism + ") must be at least 1.");
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, layers.size())));
+		try {
+			List<Future<Layer>> futures = new ArrayList<>(layers.size());
+			for (final Path path : layers) {
+				futures.add(executor.submit(new Callable<Layer>() {
+					@Override
+					public Layer call() throws IOException {
+						return Layer.read(path);
+					}
+				}));
+			}
+			List<String> keys = new ArrayList<>();
+			List<String> values = new ArrayList<>();
+			for (Future<Layer> future : futures) {
+				Layer layer = future.get();
+				keys.addAll(layer.keys);
+				values.addAll(layer.values);
+			}
+			return CompactProperties.of(keys, values);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class Layer {
+		final List<String> keys = new ArrayList<>();
+		final List<String> values = new ArrayList<>();
+
+		static Layer read(Path path) throws IOException {
+			Layer layer = new Layer();
+			try {
+				CompactProperties.parseEntries(Files.readAllBytes(path), layer.keys, layer.values);
+			} catch (NoSuchFileException e) {
+				logger.debug("(no cause for alarm) skipping missing configuration layer " + path);
+			}
+			return layer;
+		}
+	}
+}
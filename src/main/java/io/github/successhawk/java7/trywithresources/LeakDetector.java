@@ -0,0 +1,154 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reports resources that were garbage collected without being closed, with the place they were created.
+ *
+ * A tracked object gets a phantom reference and a Throwable recording the allocation site; close() on the
+ * {@link Tracker} forgets it.  When the garbage collector finds a tracked object that was never closed,
+ * its reference is queued and the leak is logged at error level the next time anything is tracked, or
+ * when {@link #reportLeaks()} is called.
+ *
+ * The mode decides what is tracked:
+ * <ul>
+ * <li>DISABLED - nothing, track() returns null.</li>
+ * <li>SIMPLE - one in {@code samplingInterval} objects, chosen at random.  Cheap enough to leave on in
+ * production while still finding a leak that happens often.</li>
+ * <li>PARANOID - every object, for tests and load tests.</li>
+ * </ul>
+ * {@link #DEFAULT} is configured with the system properties {@value #MODE_PROPERTY} (DISABLED unless set)
+ * and {@value #SAMPLING_INTERVAL_PROPERTY} (128 unless set), so it costs nothing until a deployment opts in.
+ * @author nwh02
+ *
+ */
+public final class LeakDetector {
+
+	private static final Logger logger = Logger
+			.getLogger(LeakDetector.class);
+
+	public static final String MODE_PROPERTY = "io.github.successhawk.leakDetection.mode";
+	public static final String SAMPLING_INTERVAL_PROPERTY = "io.github.successhawk.leakDetection.samplingInterval";
+
+	/** Used by {@link PropertiesLoadExample.IgnoreCloseErrors}. */
+	public static final LeakDetector DEFAULT = new LeakDetector(modeProperty(),
+			Integer.getInteger(SAMPLING_INTERVAL_PROPERTY, 128), logger);
+
+	public enum Mode { DISABLED, SIMPLE, PARANOID };
+
+	private final Mode mode;
+	private final int samplingInterval;
+	private final Logger log;
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+	/* keeps the trackers reachable until they are closed or reported */
+	private final Set<Tracker> live = Collections.newSetFromMap(new ConcurrentHashMap<Tracker, Boolean>());
+	private final AtomicLong leaks = new AtomicLong();
+
+	/**
+	 * @param mode
+	 * @param samplingInterval at SIMPLE, one in this many objects is tracked.
+	 * @param log to report leaks to.
+	 */
+	public LeakDetector(Mode mode, int samplingInterval, Logger log) {
+		if (samplingInterval < 1) {
+			throw new IllegalArgumentException("samplingInterval (" + samplingInterval + ") must be at least 1.");
+		}
+		this.mode = mode;
+		this.samplingInterval = samplingInterval;
+		this.log = log;
+	}
+
+	private static Mode modeProperty() {
+		String value = System.getProperty(MODE_PROPERTY);
+		if (value != null) {
+			try {
+				return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				logger.warn("unknown " + MODE_PROPERTY + " " + value + ", using " + Mode.DISABLED);
+			}
+		}
+		return Mode.DISABLED;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Starts tracking the resource if the mode and sampling say so, after reporting any leaks found so far.
+	 * @param resource the object that must be closed, such as the stream a wrapper closes.  Do not pass
+	 *  {@code this} from a constructor, which lets the object escape before it is fully built.
+	 * @return the tracker to close when the resource is closed, or null if the resource is not tracked.
+	 */
+	public Tracker track(Object resource) {
+		if (mode == Mode.DISABLED) {
+			return null;
+		}
+		reportLeaks();
+		if (mode == Mode.SIMPLE && samplingInterval > 1 && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+			return null;
+		}
+		Tracker tracker = new Tracker(resource, queue, live);
+		live.add(tracker);
+		return tracker;
+	}
+
+	/**
+	 * Logs every tracked object the garbage collector has found unclosed since the last call.
+	 * @return the number of leaks reported by this call.
+	 */
+	public int reportLeaks() {
+		int reported = 0;
+		for (Tracker tracker = (Tracker) queue.poll(); tracker != null; tracker = (Tracker) queue.poll()) {
+			if (live.remove(tracker)) {
+				reported++;
+				leaks.incrementAndGet();
+				log.error("LEAK: a " + tracker.type + " was garbage collected without being closed.  "
+						+ "It was created at:", tracker.allocationSite);
+			}
+		}
+		return reported;
+	}
+
+	/** @return the number of leaks reported so far. */
+	public long getLeakCount() {
+		return leaks.get();
+	}
+
+	/** @return the number of tracked objects that have not been closed yet. */
+	public int getTrackedCount() {
+		return live.size();
+	}
+
+	/**
+	 * Tracks one resource.  Closed by the resource's own close().
+	 */
+	public static final class Tracker extends PhantomReference<Object> {
+		private final String type;
+		private final Throwable allocationSite;
+		private final Set<Tracker> live;
+
+		Tracker(Object resource, ReferenceQueue<Object> queue, Set<Tracker> live) {
+			super(resource, queue);
+			this.type = resource.getClass().getName();
+			this.allocationSite = new Throwable("allocation site of " + type);
+			this.live = live;
+		}
+
+		/** Marks the resource as closed.  Calling it again has no effect. */
+		public void close() {
+			if (live.remove(this)) {
+				clear();
+			}
+		}
+	}
+}
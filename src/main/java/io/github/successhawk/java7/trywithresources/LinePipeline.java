@@ -0,0 +1,163 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Copies a file line by line through a chain of transforms, with reading and writing on separate threads.
+ *
+ * The reader thread reads and transforms lines and hands them to the calling thread in chunks through a
+ * bounded queue.  When the writer falls behind the queue fills up and the reader blocks, so at most
+ * {@code queueCapacity * chunkSize} lines are held in memory whatever the size of the file.
+ *
+ * Lines are written with '\n' terminators, like {@link TryWithResourcesExample#transferFirstLine_Java7(String, String)}.
+ * If either side fails the other is stopped, both files are closed and the target is left incomplete.
+ * @author nwh02
+ *
+ */
+public final class LinePipeline {
+
+	/**
+	 * One step of the pipeline.  Runs on the reader thread.
+	 */
+	public interface LineTransform {
+		/**
+		 * @param line without its terminator.
+		 * @return the replacement line, or null to drop the line.
+		 */
+		String apply(String line);
+	}
+
+	/** Marks the end of the input.  Compared by identity. */
+	private static final List<String> END = new ArrayList<>(0);
+
+	private final Charset charset;
+	private final int queueCapacity;
+	private final int chunkSize;
+	private final LineTransform[] transforms;
+
+	/**
+	 * @param charset of both files.
+	 * @param queueCapacity number of chunks that may wait for the writer.
+	 * @param chunkSize number of lines handed over at a time.
+	 * @param transforms applied in order to every line.
+	 */
+	public LinePipeline(Charset charset, int queueCapacity, int chunkSize, LineTransform... transforms) {
+		if (queueCapacity < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("queueCapacity (" + queueCapacity + ") and chunkSize (" + chunkSize + ") must be at least 1.");
+		}
+		this.charset = charset;
+		this.queueCapacity = queueCapacity;
+		this.chunkSize = chunkSize;
+		this.transforms = transforms.clone();
+	}
+
+	/**
+	 * Streams the lines of from through the transforms into to.
+	 * @param from
+	 * @param to created or truncated.
+	 * @return the number of lines written.
+	 * @throws IOException if either file fails.
+	 * @throws InterruptedException
+	 */
+	public long run(Path from, Path to) throws IOException, InterruptedException {
+		BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(queueCapacity);
+		ReadStage stage = new ReadStage(from, queue);
+		Thread reader = new Thread(stage, "line-pipeline-reader");
+		reader.setDaemon(true);
+		reader.start();
+		boolean drained = false;
+		try {
+			long written = write(to, queue);
+			drained = true;
+			stage.rethrow();
+			return written;
+		} finally {
+			if (!drained) {
+				reader.interrupt();
+			}
+			reader.join();
+		}
+	}
+
+	private long write(Path to, BlockingQueue<List<String>> queue) throws IOException, InterruptedException {
+		long written = 0;
+		try (BufferedWriter bw = Files.newBufferedWriter(to, charset)) {
+			for (List<String> chunk = queue.take(); chunk != END; chunk = queue.take()) {
+				for (String line : chunk) {
+					bw.write(line);
+					bw.write('\n');
+				}
+				written += chunk.size();
+			}
+		}
+		return written;
+	}
+
+	private String transform(String line) {
+		for (LineTransform transform : transforms) {
+			line = transform.apply(line);
+			if (line == null) {
+				break;
+			}
+		}
+		return line;
+	}
+
+	private final class ReadStage implements Runnable {
+		private final Path from;
+		private final BlockingQueue<List<String>> queue;
+		private volatile Throwable failure;
+
+		ReadStage(Path from, BlockingQueue<List<String>> queue) {
+			this.from = from;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			try {
+				try (BufferedReader br = Files.newBufferedReader(from, charset)) {
+					List<String> chunk = new ArrayList<>(chunkSize);
+					for (String line = br.readLine(); line != null; line = br.readLine()) {
+						line = transform(line);
+						if (line != null) {
+							chunk.add(line);
+							if (chunk.size() == chunkSize) {
+								queue.put(chunk);
+								chunk = new ArrayList<>(chunkSize);
+							}
+						}
+					}
+					if (!chunk.isEmpty()) {
+						queue.put(chunk);
+					}
+				} catch (IOException | RuntimeException | Error e) {
+					failure = e;
+				}
+				queue.put(END);
+			} catch (InterruptedException e) {
+				/* The writer gave up and nobody will take from the queue any more. */
+			}
+		}
+
+		void rethrow() throws IOException {
+			Throwable e = failure;
+			if (e instanceof IOException) {
+				throw (IOException) e;
+			} else if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			} else if (e != null) {
+				throw (Error) e;
+			}
+		}
+	}
+}
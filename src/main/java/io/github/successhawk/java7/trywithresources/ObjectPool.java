@@ -0,0 +1,194 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A pool of reusable objects, leased with try-with-resources.
+ *
+ * <pre>
+ * try (ObjectPool.Lease&lt;ByteBuffer&gt; buffer = pool.acquire()) {
+ *     ByteBuffer bytes = buffer.get();
+ *     ...
+ * } // back in the pool, not garbage
+ * </pre>
+ * Each thread keeps up to {@code localCapacity} returned objects for itself, so a thread that leases and
+ * returns an object in a loop touches no shared state at all.  Objects returned beyond that go to a shared
+ * lock-free stack, where other threads find them, and beyond {@code sharedCapacity} they are dropped.
+ * An object returned on another thread than it was leased on, for example by a {@link BackgroundCloser},
+ * ends up in that thread's cache.
+ *
+ * Every acquire returns a new Lease, which is small enough for the JIT to keep off the heap when it does not
+ * escape the try block; the pooled objects are what is reused.  A closed lease therefore stays closed even when
+ * its object has been leased again.
+ *
+ * The shared stack is a Treiber stack that allocates a new node per push; reusing nodes would let a
+ * compareAndSet succeed on a node that was popped and pushed again in the meantime (the ABA problem).
+ * @author nwh02
+ *
+ */
+public final class ObjectPool<T> {
+
+	/**
+	 * Creates the pooled objects and readies them for the next lease.
+	 */
+	public interface Factory<T> {
+		T create();
+
+		/** Called when the object is returned, before it can be leased again. */
+		void reset(T object);
+	}
+
+	private final Factory<T> factory;
+	private final int localCapacity;
+	private final int sharedCapacity;
+	private final ThreadLocal<LocalCache<T>> local;
+	private final AtomicReference<Node<T>> top = new AtomicReference<>();
+	private final AtomicInteger sharedSize = new AtomicInteger();
+	private final AtomicLong created = new AtomicLong();
+
+	/**
+	 * @param factory
+	 * @param localCapacity number of returned objects each thread keeps for itself.
+	 * @param sharedCapacity number of returned objects kept for all threads.
+	 */
+	public ObjectPool(Factory<T> factory, final int localCapacity, int sharedCapacity) {
+		this.factory = factory;
+		this.localCapacity = localCapacity;
+		this.sharedCapacity = sharedCapacity;
+		this.local = new ThreadLocal<LocalCache<T>>() {
+			@Override
+			protected LocalCache<T> initialValue() {
+				return new LocalCache<>(localCapacity);
+			}
+		};
+	}
+
+	/**
+	 * Leases a pooled object, or a new one if the pool is empty.
+	 * @return the lease, to be closed when the object is no longer used.
+	 */
+	public Lease<T> acquire() {
+		T object = local.get().pop();
+		if (object == null) {
+			object = popShared();
+			if (object == null) {
+				created.incrementAndGet();
+				object = factory.create();
+			}
+		}
+		return new Lease<>(this, object);
+	}
+
+	private void release(T object) {
+		factory.reset(object);
+		if (!local.get().push(object)) {
+			pushShared(object);
+		}
+	}
+
+	private void pushShared(T object) {
+		if (sharedSize.incrementAndGet() > sharedCapacity) {
+			sharedSize.decrementAndGet();
+			return;
+		}
+		Node<T> node = new Node<>(object);
+		do {
+			node.next = top.get();
+		} while (!top.compareAndSet(node.next, node));
+	}
+
+	private T popShared() {
+		Node<T> node;
+		do {
+			node = top.get();
+			if (node == null) {
+				return null;
+			}
+		} while (!top.compareAndSet(node, node.next));
+		sharedSize.decrementAndGet();
+		return node.object;
+	}
+
+	/** @return the number of objects the factory has created. */
+	public long getCreatedCount() {
+		return created.get();
+	}
+
+	/** @return the number of objects in the shared stack. */
+	public int getSharedSize() {
+		return sharedSize.get();
+	}
+
+	/**
+	 * A leased object.  Closing the lease returns the object to its pool.
+	 */
+	public static final class Lease<T> implements AutoCloseable {
+		private final ObjectPool<T> pool;
+		/* null once closed; only touched by the thread holding the lease */
+		private T object;
+
+		Lease(ObjectPool<T> pool, T object) {
+			this.pool = pool;
+			this.object = object;
+		}
+
+		/**
+		 * Returns the leased object.
+		 * @return
+		 */
+		public T get() {
+			if (object == null) {
+				throw new IllegalStateException("lease has been closed");
+			}
+			return object;
+		}
+
+		/** Returns the object to the pool.  Only the first call has an effect. */
+		@Override
+		public void close() {
+			T released = object;
+			if (released != null) {
+				object = null;
+				pool.release(released);
+			}
+		}
+	}
+
+	private static final class Node<T> {
+		final T object;
+		Node<T> next;
+
+		Node(T object) {
+			this.object = object;
+		}
+	}
+
+	private static final class LocalCache<T> {
+		private final Object[] objects;
+		private int size;
+
+		LocalCache(int capacity) {
+			this.objects = new Object[capacity];
+		}
+
+		@SuppressWarnings("unchecked")
+		T pop() {
+			if (size == 0) {
+				return null;
+			}
+			T object = (T) objects[--size];
+			objects[size] = null;
+			return object;
+		}
+
+		boolean push(T object) {
+			if (size == objects.length) {
+				return false;
+			}
+			objects[size++] = object;
+			return true;
+		}
+	}
+}
@@ -66,6 +66,8 @@ public class PropertiesLoadExample {
 	 * Jesse and Cade, this is a first stab at a reuseable class.  I would think about it more before publishing it.
 	 * 
 	 * Logs any errors that are thrown during closing the given closeable.
+	 * Repeated failures are rate limited by a {@link CloseErrorRateLimiter}, so a storm of identical close errors
+	 * does not turn into a storm of identical stack traces.
 	 * WARNING! Do not use this if you are not sure that the given AutoCloseable's close method can be ignored.  
 	 * @author nwh02
 	 *
@@ -77,6 +79,8 @@ public class PropertiesLoadExample {
 		private final Level level;
 		private final String errorMessage;
 		private final C closeable;
+		private final CloseErrorRateLimiter limiter;
+		private final LeakDetector.Tracker leak;
 		
 		/**
 		 * Convenience constructor that logs any exceptions to this class's default logger at the debug level.
@@ -87,17 +91,32 @@ public class PropertiesLoadExample {
 		}
 		
 		/**
-		 * 
+		 * Rate limits the logging with {@link CloseErrorRateLimiter#DEFAULT}.
 		 * @param logger to log any exception to if it occurs.
 		 * @param level to log at.
 		 * @param closeable
 		 * @param errorMessage if null, then the exception's message will be logged.
 		 */
 		public IgnoreCloseErrors(C closeable, Logger logger, Level level, String errorMessage) {
+			this(closeable, logger, level, errorMessage, CloseErrorRateLimiter.DEFAULT);
+		}
+		
+		/**
+		 * If {@link LeakDetector#DEFAULT} is enabled, a sample of the wrapped closeables is tracked so that
+		 * one that is never closed gets reported.
+		 * @param logger to log any exception to if it occurs.
+		 * @param level to log at.
+		 * @param closeable
+		 * @param errorMessage if null, then the exception's message will be logged.
+		 * @param limiter if null, then every exception is logged.
+		 */
+		public IgnoreCloseErrors(C closeable, Logger logger, Level level, String errorMessage, CloseErrorRateLimiter limiter) {
 			this.closeable = closeable;
 			this.log = logger;
 			this.level = level;
 			this.errorMessage = errorMessage;
+			this.limiter = limiter;
+			this.leak = closeable == null ? null : LeakDetector.DEFAULT.track(closeable);
 		}
 		
 		/**
@@ -110,10 +129,36 @@ public class PropertiesLoadExample {
 		
 		@Override
 		public void close() {
+			try {
+				closeQuietly(closeable, log, level, errorMessage, limiter);
+			} finally {
+				if (leak != null) {
+					leak.close();
+				}
+			}
+		}
+		
+		/**
+		 * Closes closeable, logging rather than throwing any exception, the same way the wrapper does.
+		 * @param closeable
+		 * @param log to log any exception to if it occurs.
+		 * @param level to log at.
+		 * @param errorMessage if null, then the exception's message will be logged.
+		 * @param limiter if null, then every exception is logged.
+		 * @return false if close threw.
+		 */
+		static boolean closeQuietly(AutoCloseable closeable, Logger log, Level level, String errorMessage, CloseErrorRateLimiter limiter) {
 			try {
 				closeable.close();
+				return true;
 			} catch (Exception e) {
-				log.log(level, ( errorMessage == null ? e.getMessage() : errorMessage ), e);
+				String message = ( errorMessage == null ? e.getMessage() : errorMessage );
+				if (limiter == null) {
+					log.log(level, message, e);
+				} else {
+					limiter.log(log, level, message, e);
+				}
+				return false;
 			}
 		}
 	}
@@ -0,0 +1,183 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Holds the contents of a properties file as an immutable snapshot and replaces the snapshot when the
+ * file changes.
+ *
+ * Unlike loading into a shared {@link Properties} (see {@link PropertiesLoadExample}) readers never take a
+ * lock and never see a half loaded file: a reload parses into a new snapshot and publishes it with a
+ * single volatile write.  Code that needs several consistent values should call {@link #getSnapshot()}
+ * once and read them all from it.
+ *
+ * A background thread watches the file's directory.  Changes are debounced: the file is reloaded once no
+ * further change to it was seen for the debounce time, so an editor writing in several steps causes one reload.
+ * Changes to other files in the directory are ignored.  If a reload fails the previous snapshot stays in place.
+ * Reloads run one at a time, so the published snapshot is always from the latest read of the file.
+ * @author nwh02
+ *
+ */
+public final class ReloadingConfiguration implements AutoCloseable {
+
+	private static final Logger logger = Logger
+			.getLogger(ReloadingConfiguration.class);
+
+	private final Path file;
+	private final Map<String, String> defaults;
+	private final long debounceMillis;
+	private final WatchService watchService;
+	private final Thread watcher;
+	private final Object reloadLock = new Object();
+	private volatile Snapshot snapshot;
+	private volatile long reloadCount;
+
+	/**
+	 * Loads the file and starts watching it.
+	 * @param file
+	 * @param defaults values for keys that are not in the file, or that are used when the file can not be read.
+	 * @param debounceMillis quiet time after a change before the file is reloaded.
+	 * @throws IOException if the directory of the file can not be watched.
+	 */
+	public ReloadingConfiguration(Path file, Map<String, String> defaults, long debounceMillis) throws IOException {
+		this.file = file.toAbsolutePath();
+		this.defaults = new HashMap<>(defaults);
+		this.debounceMillis = debounceMillis;
+		this.snapshot = new Snapshot(this.defaults);
+		reload();
+		this.watchService = this.file.getFileSystem().newWatchService();
+		this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		this.watcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "configuration-watcher-" + this.file.getFileName());
+		this.watcher.setDaemon(true);
+		this.watcher.start();
+	}
+
+	/** @return the current snapshot.  Wait free. */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/** @return the current value of the key, or null. */
+	public String get(String key) {
+		return snapshot.get(key);
+	}
+
+	/**
+	 * Reads the file now and publishes the result.  Waits for a reload by the watcher that is in progress, so
+	 * an older read never replaces a newer one.
+	 * @return true if the file was read, false if the previous snapshot was kept.
+	 */
+	public boolean reload() {
+		synchronized (reloadLock) {
+			Properties properties = new Properties();
+			/* A failed close must not throw away a good load. */
+			try (PropertiesLoadExample.IgnoreCloseErrors<InputStream> in = new PropertiesLoadExample.IgnoreCloseErrors<>(Files.newInputStream(file))) {
+				properties.load(in.get());
+			} catch (IOException | IllegalArgumentException e) {
+				logger.warn("Keeping the previous configuration, could not load " + file + " " + e);
+				return false;
+			}
+			Map<String, String> values = new HashMap<>(defaults);
+			for (String key : properties.stringPropertyNames()) {
+				values.put(key, properties.getProperty(key));
+			}
+			snapshot = new Snapshot(values);
+			reloadCount++;
+			logger.debug("Loaded " + values.size() + " properties from " + file);
+			return true;
+		}
+	}
+
+	/** @return the number of snapshots read from the file, including the first one. */
+	public long getReloadCount() {
+		return reloadCount;
+	}
+
+	private void watch() {
+		long debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+		try {
+			while (true) {
+				if (!drain(watchService.take())) {
+					continue;
+				}
+				/* Keep waiting until the file has been quiet for the debounce time.  Only changes to the
+				 * file itself restart the wait. */
+				long deadline = System.nanoTime() + debounceNanos;
+				for (long wait = debounceNanos; wait > 0; wait = deadline - System.nanoTime()) {
+					WatchKey key = watchService.poll(wait, TimeUnit.NANOSECONDS);
+					if (key != null && drain(key)) {
+						deadline = System.nanoTime() + debounceNanos;
+					}
+				}
+				reload();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			/* closed */
+		}
+	}
+
+	private boolean drain(WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+					|| file.getFileName().equals(event.context());
+		}
+		key.reset();
+		return changed;
+	}
+
+	/** Stops watching the file.  The last snapshot stays readable. */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+	/**
+	 * An immutable set of configuration values.
+	 */
+	public static final class Snapshot {
+		private final Map<String, String> values;
+
+		Snapshot(Map<String, String> values) {
+			this.values = Collections.unmodifiableMap(new HashMap<>(values));
+		}
+
+		/** @return the value, or null. */
+		public String get(String key) {
+			return values.get(key);
+		}
+
+		/** @return the value, or defaultValue if the key is not set. */
+		public String get(String key, String defaultValue) {
+			String value = values.get(key);
+			return value == null ? defaultValue : value;
+		}
+
+		/** @return all keys. */
+		public Set<String> keys() {
+			return values.keySet();
+		}
+	}
+}
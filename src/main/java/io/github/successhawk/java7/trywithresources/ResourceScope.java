@@ -0,0 +1,100 @@
+package io.github.successhawk.java7.trywithresources;
+
+import java.util.Arrays;
+
+/**
+ * Closes any number of resources with the same guarantees as one try-with-resources statement per resource.
+ *
+ * <pre>
+ * try (ResourceScope scope = new ResourceScope()) {
+ *     InputStream in = scope.register(new FileInputStream(from));
+ *     OutputStream out = scope.register(new FileOutputStream(to));
+ *     ...
+ * }
+ * </pre>
+ * Resources are closed in the reverse order of registration, every one of them is closed even when others
+ * fail, and the first failure is thrown with the later ones added as suppressed exceptions, exactly like
+ * nested try blocks.  Unlike nested try blocks this costs one object and one array however many resources
+ * are registered.  Only the first {@code maxSuppressed} further failures are kept.
+ *
+ * After close() the scope is empty and can be used again.  Not thread safe.
+ *
+ * close() throws whatever the resources throw, so it is declared to throw Exception, which javac's
+ * {@code -Xlint:try} reports because that includes InterruptedException.  An interrupted close is rethrown
+ * like any other failure, as nested try blocks would; add {@code @SuppressWarnings("try")} where a scope
+ * is used in a try statement.
+ * @author nwh02
+ *
+ */
+@SuppressWarnings("try")
+public final class ResourceScope implements AutoCloseable {
+
+	private AutoCloseable[] resources;
+	private int count;
+	private final int maxSuppressed;
+
+	/**
+	 * A scope for 16 resources before it has to grow, keeping up to 64 suppressed exceptions.
+	 */
+	public ResourceScope() {
+		this(16, 64);
+	}
+
+	/**
+	 * @param initialCapacity number of resources before the scope has to grow.
+	 * @param maxSuppressed number of close failures added as suppressed exceptions to the first one.
+	 */
+	public ResourceScope(int initialCapacity, int maxSuppressed) {
+		this.resources = new AutoCloseable[Math.max(1, initialCapacity)];
+		this.maxSuppressed = maxSuppressed;
+	}
+
+	/**
+	 * Registers the resource to be closed by this scope.
+	 * @param resource may be null, which is ignored like a null resource in try-with-resources.
+	 * @return resource
+	 */
+	public <T extends AutoCloseable> T register(T resource) {
+		if (resource != null) {
+			if (count == resources.length) {
+				resources = Arrays.copyOf(resources, count * 2);
+			}
+			resources[count++] = resource;
+		}
+		return resource;
+	}
+
+	/** @return the number of resources that will be closed. */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Closes all resources, last registered first, and empties the scope.
+	 * @throws Exception the first close failure, with the others suppressed.
+	 */
+	@Override
+	public void close() throws Exception {
+		Throwable first = null;
+		int suppressed = 0;
+		while (count > 0) {
+			AutoCloseable resource = resources[--count];
+			resources[count] = null;
+			try {
+				resource.close();
+			} catch (Throwable t) {
+				if (first == null) {
+					first = t;
+				} else if (suppressed < maxSuppressed) {
+					first.addSuppressed(t);
+					suppressed++;
+				}
+			}
+		}
+		if (first instanceof Exception) {
+			throw (Exception) first;
+		} else if (first != null) {
+			throw (Error) first;
+		}
+	}
+}
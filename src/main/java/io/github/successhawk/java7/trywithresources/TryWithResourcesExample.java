@@ -4,7 +4,23 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Checksum;
+import java.util.zip.GZIPOutputStream;
 
 public class TryWithResourcesExample {
 
@@ -33,6 +49,11 @@ public String readFirstLineFromFile(String path) throws IOException {
         return br.readLine();
     }
 }
+
+/* Java 7+ Byte level. No BufferedReader, no StringBuilder, and usually a single read. See FirstLineReader. */
+public String readFirstLineFromFile(String path, Charset charset) throws IOException {
+    return FirstLineReader.readFirstLine(Paths.get(path), charset);
+}
 	
 /* Java 6- No telling what exception will be thrown and some could be lost. */
 public void transferFirstLine(String fromPath, String toPath) throws IOException {
@@ -64,6 +85,273 @@ public void transferFirstLine_Java7(String fromPath, String toPath) throws IOExc
     }
 }
 
+/* Java 7+ Reads plain or gzip input, detected from its first bytes, and writes gzip output.
+ * Only the start of a compressed source is inflated.  The GZIPOutputStream is its own resource so that
+ * its trailer is written by close() even if the writer around it fails.
+ */
+public void transferFirstLine_Gzip(String fromPath, String toPath, Charset charset) throws IOException {
+    String line = FirstLineReader.readFirstLineDecompressing(Paths.get(fromPath), charset);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(new FileOutputStream(toPath));
+         BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(gzip, charset))) {
+        bw.write(line);
+        bw.write('\n');
+    }
+}
+
+/* Java 7+ Durable.  The line is written to a temporary file next to the target and forced to disk, then the
+ * committer renames it over the target.  After a crash the target is either the old file or the complete new one.
+ * The committer batches the renames and directory syncs of concurrent transfers.  The target keeps its permissions,
+ * or a new one gets the umask defaults, as with the other transfers.
+ */
+public void transferFirstLine_Durable(String fromPath, String toPath, GroupCommitter committer) throws IOException {
+    Path target = Paths.get(toPath).toAbsolutePath();
+    Path temp = GroupCommitter.createTempSibling(target);
+    boolean committed = false;
+    try {
+        try (BufferedReader br = new BufferedReader(new FileReader(fromPath));
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+             BufferedWriter bw = new BufferedWriter(Channels.newWriter(channel, Charset.defaultCharset().newEncoder(), -1))) {
+            bw.write(br.readLine());
+            bw.write('\n');
+            bw.flush();
+            channel.force(true);
+        }
+        committer.commit(temp, target);
+        committed = true;
+    } finally {
+        if (!committed) {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
+
+/* Java 7+ Pooled.  The same transfer as transferFirstLine_Java7 without a new reader, writer, buffers, encoder
+ * or decoder per call: they are leased from IoPools and go back to the pools when the try block closes the leases.
+ * The line is streamed through the buffers, so it may be longer than they are.  An empty source gives an empty line.
+ */
+public void transferFirstLine_Pooled(String fromPath, String toPath, Charset charset) throws IOException {
+    try (ObjectPool.Lease<ByteBuffer> inBytes = IoPools.byteBuffers().acquire();
+         ObjectPool.Lease<ByteBuffer> outBytes = IoPools.byteBuffers().acquire();
+         ObjectPool.Lease<CharBuffer> chars = IoPools.charBuffers().acquire();
+         ObjectPool.Lease<CharsetDecoder> decoder = IoPools.decoders(charset).acquire();
+         ObjectPool.Lease<CharsetEncoder> encoder = IoPools.encoders(charset).acquire();
+         FileChannel in = FileChannel.open(Paths.get(fromPath), StandardOpenOption.READ);
+         FileChannel out = openForTransfer(toPath)) {
+        ByteBuffer bytes = inBytes.get();
+        CharBuffer line = chars.get();
+        boolean eof = false;
+        for (;;) {
+            if (!eof && in.read(bytes) < 0) {
+                eof = true;
+            }
+            bytes.flip();
+            CoderResult result = decoder.get().decode(bytes, line, eof);
+            bytes.compact();
+            boolean drained = eof && result.isUnderflow();
+            if (drained) {
+                decoder.get().flush(line);
+            }
+            line.flip();
+            int end = indexOfLineTerminator(line);
+            if (end >= 0) {
+                line.limit(end);
+            }
+            encode(line, false, encoder.get(), outBytes.get(), out);
+            line.clear();
+            if (end >= 0 || drained) {
+                break;
+            }
+        }
+        line.put('\n').flip();
+        encode(line, true, encoder.get(), outBytes.get(), out);
+    }
+}
+
+private static int indexOfLineTerminator(CharBuffer chars) {
+    for (int i = chars.position(); i < chars.limit(); i++) {
+        char c = chars.get(i);
+        if (c == '\n' || c == '\r') {
+            return i;
+        }
+    }
+    return -1;
+}
+
+/* Encodes all of chars, writing the bytes out whenever the buffer fills, and flushes the encoder at the end of input. */
+private static void encode(CharBuffer chars, boolean endOfInput, CharsetEncoder encoder, ByteBuffer bytes, FileChannel out)
+        throws IOException {
+    for (;;) {
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        if (result.isUnderflow() && endOfInput) {
+            result = encoder.flush(bytes);
+        }
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+        if (result.isUnderflow()) {
+            return;
+        }
+    }
+}
+
+/* Java 7+ Zero copy.  The kernel moves the bytes from file to file; nothing is decoded or re-encoded.
+ * Both channels are resources of the same try, so they are closed, and close failures suppressed,
+ * exactly like the readers and writers above.
+ */
+public long transferFile(String fromPath, String toPath) throws IOException {
+    try (FileChannel in = FileChannel.open(Paths.get(fromPath), StandardOpenOption.READ);
+         FileChannel out = openForTransfer(toPath)) {
+        return transferFully(in, 0, in.size(), out);
+    }
+}
+
+/* Java 7+ Zero copy of the first lineCount lines, including their original line terminators.
+ * Only the bytes needed to find the end of the last line are read into the JVM.
+ */
+public long transferFirstLines(String fromPath, String toPath, int lineCount) throws IOException {
+    if (lineCount < 0) {
+        throw new IllegalArgumentException("lineCount (" + lineCount + ") is negative.");
+    }
+    try (FileChannel in = FileChannel.open(Paths.get(fromPath), StandardOpenOption.READ);
+         FileChannel out = openForTransfer(toPath)) {
+        return transferFully(in, 0, lengthOfLines(in, lineCount), out);
+    }
+}
+
+/* Java 7+ Zero copy of count bytes starting at position.  A range past the end of the file is cut short. */
+public long transferRange(String fromPath, String toPath, long position, long count) throws IOException {
+    if (position < 0 || count < 0) {
+        throw new IllegalArgumentException("position (" + position + ") and count (" + count + ") must not be negative.");
+    }
+    try (FileChannel in = FileChannel.open(Paths.get(fromPath), StandardOpenOption.READ);
+         FileChannel out = openForTransfer(toPath)) {
+        return transferFully(in, position, Math.min(count, Math.max(0, in.size() - position)), out);
+    }
+}
+
+/* Java 7+ Streams every line through the transforms, reading and writing on separate threads with bounded memory. */
+public long transferLines(String fromPath, String toPath, Charset charset, LinePipeline.LineTransform... transforms)
+		throws IOException, InterruptedException {
+    return new LinePipeline(charset, 16, 256, transforms).run(Paths.get(fromPath), Paths.get(toPath));
+}
+
+/* Java 7+ Copies the file and updates the checksum with every byte on the way through, so checking the
+ * copy needs no second read of either file.  The bytes have to pass through the JVM to be checksummed,
+ * so this is not zero copy.
+ */
+public long transferFile(String fromPath, String toPath, Checksum checksum) throws IOException {
+    try (FileChannel in = FileChannel.open(Paths.get(fromPath), StandardOpenOption.READ);
+         FileChannel out = openForTransfer(toPath)) {
+        return copyWithChecksum(in, 0, in.size(), out, checksum);
+    }
+}
+
+/* Java 7+ Checksummed copy of count bytes starting at position.  A range past the end of the file is cut short. */
+public long transferRange(String fromPath, String toPath, long position, long count, Checksum checksum) throws IOException {
+    if (position < 0 || count < 0) {
+        throw new IllegalArgumentException("position (" + position + ") and count (" + count + ") must not be negative.");
+    }
+    try (FileChannel in = FileChannel.open(Paths.get(fromPath), StandardOpenOption.READ);
+         FileChannel out = openForTransfer(toPath)) {
+        return copyWithChecksum(in, position, count, out, checksum);
+    }
+}
+
+/* Java 7+ Copies the file and checks its CRC-32C.  On a mismatch the copy is deleted and an IOException thrown. */
+public void transferFileVerified(String fromPath, String toPath, long expectedCrc32c) throws IOException {
+    Checksum checksum = new Crc32c();
+    transferFile(fromPath, toPath, checksum);
+    if (checksum.getValue() != expectedCrc32c) {
+        Files.deleteIfExists(Paths.get(toPath));
+        throw new IOException("CRC-32C of " + fromPath + " is " + Long.toHexString(checksum.getValue())
+                + ", expected " + Long.toHexString(expectedCrc32c) + ".");
+    }
+}
+
+private static long copyWithChecksum(FileChannel in, long position, long count, FileChannel out, Checksum checksum)
+		throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    long copied = 0;
+    while (copied < count) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), count - copied));
+        int read = in.read(buffer, position + copied);
+        if (read < 0) {
+            break;
+        }
+        checksum.update(buffer.array(), 0, read);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        copied += read;
+    }
+    return copied;
+}
+
+private static FileChannel openForTransfer(String toPath) throws IOException {
+    return FileChannel.open(Paths.get(toPath), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+}
+
+/* transferTo may move fewer bytes than asked for, so keep going until done or the source runs out. */
+private static long transferFully(FileChannel in, long position, long count, FileChannel out) throws IOException {
+    long transferred = 0;
+    while (transferred < count) {
+        long n = in.transferTo(position + transferred, count - transferred, out);
+        if (n <= 0) {
+            break;
+        }
+        transferred += n;
+    }
+    return transferred;
+}
+
+/* Byte length of the first lineCount lines, using the readLine() terminators '\n', '\r' and "\r\n". */
+static long lengthOfLines(FileChannel channel, int lineCount) throws IOException {
+    if (lineCount == 0) {
+        return 0;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(8192);
+    long position = 0;
+    int lines = 0;
+    boolean afterCarriageReturn = false;
+    while (true) {
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+            return position;
+        }
+        for (int i = 0; i < read; i++) {
+            byte b = buffer.get(i);
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (b == '\n') {
+                    position++;
+                    if (lines == lineCount) {
+                        return position;
+                    }
+                    continue;
+                }
+                if (lines == lineCount) {
+                    return position;
+                }
+            }
+            position++;
+            if (b == '\n') {
+                if (++lines == lineCount) {
+                    return position;
+                }
+            } else if (b == '\r') {
+                lines++;
+                afterCarriageReturn = true;
+            }
+        }
+    }
+}
+
 
 public static void main(String[] args) {
 	
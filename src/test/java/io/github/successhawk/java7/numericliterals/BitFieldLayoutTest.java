@@ -0,0 +1,111 @@
+package io.github.successhawk.java7.numericliterals;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import io.github.successhawk.java7.numericliterals.BitFieldLayout.BitField;
+
+public class BitFieldLayoutTest {
+
+	private final BitFieldLayout layout = new BitFieldLayout(new String[] { "flag", "kind", "count" }, new int[] { 1, 3, 12 });
+	private final BitField flag = layout.field("flag");
+	private final BitField kind = layout.field("kind");
+	private final BitField count = layout.field("count");
+
+	@Test public void testMasks() {
+		assertEquals(0b1, flag.getMask());
+		assertEquals(0b1110, kind.getMask());
+		assertEquals(1, kind.getShift());
+		assertEquals(0b1111_1111_1111_0000, count.getMask());
+		assertEquals(4095, count.getMaxValue());
+		assertEquals(16, layout.getBits());
+		assertEquals(3, layout.getFields().size());
+	}
+
+	@Test public void testGetSet() {
+		long record = 0;
+		record = flag.set(record, 1);
+		record = kind.set(record, 5);
+		record = count.set(record, 4095);
+		assertEquals(0b1111_1111_1111_101_1, record);
+		assertEquals(1, flag.get(record));
+		assertEquals(5, kind.get(record));
+		assertEquals(4095, count.get(record));
+		record = kind.set(record, 2);
+		assertEquals(2, kind.get(record));
+		assertEquals(4095, count.get(record));
+		assertEquals(1, flag.get(record));
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testTooLarge() {
+		kind.set(0, 8);
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testNegative() {
+		count.set(0, -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testTooWide() {
+		new BitFieldLayout(new String[] { "a", "b" }, new int[] { 60, 5 });
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testDuplicate() {
+		new BitFieldLayout(new String[] { "a", "a" }, new int[] { 1, 1 });
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testUnknown() {
+		layout.field("missing");
+	}
+
+	@Test public void testFullWidth() {
+		BitFieldLayout wide = new BitFieldLayout(new String[] { "low", "high" }, new int[] { 1, 63 });
+		BitField high = wide.field("high");
+		long record = high.set(1, Long.MAX_VALUE);
+		assertEquals(-1L, record);
+		assertEquals(Long.MAX_VALUE, high.get(record));
+		BitField all = new BitFieldLayout(new String[] { "all" }, new int[] { 64 }).field("all");
+		assertEquals(Long.MIN_VALUE, all.get(all.set(0, Long.MIN_VALUE)));
+	}
+
+	@Test public void testArraysAndBuffers() {
+		Random random = new Random(5);
+		int size = 10000;
+		long[] records = new long[size];
+		ByteBuffer buffer = ByteBuffer.allocateDirect(size * 8);
+		int expectedKind3 = 0;
+		for (int i = 0; i < size; i++) {
+			int k = random.nextInt(8);
+			expectedKind3 += k == 3 ? 1 : 0;
+			kind.set(records, i, k);
+			count.set(records, i, i % 4096);
+			kind.set(buffer, i, k);
+			count.set(buffer, i, i % 4096);
+			assertEquals(k, kind.get(records, i));
+			assertEquals(k, kind.get(buffer, i));
+		}
+		assertEquals(expectedKind3, kind.count(records, 0, size, 3));
+		assertEquals(expectedKind3, kind.count(buffer, 0, size, 3));
+
+		int[] indexes = new int[size];
+		assertEquals(expectedKind3, kind.filter(records, 0, size, 3, indexes));
+		int[] fromBuffer = new int[size];
+		assertEquals(expectedKind3, kind.filter(buffer, 0, size, 3, fromBuffer));
+		for (int i = 0; i < expectedKind3; i++) {
+			assertEquals(3, kind.get(records, indexes[i]));
+			assertEquals(indexes[i], fromBuffer[i]);
+		}
+
+		int[] few = new int[2];
+		assertEquals(3, count.filter(records, 0, size, 7, few));
+		assertEquals(7, few[0]);
+		assertEquals(4096 + 7, few[1]);
+	}
+
+	@Test public void testToString() {
+		assertTrue(kind.toString(), kind.toString().endsWith("_00001110L]"));
+	}
+}
@@ -0,0 +1,217 @@
+package io.github.successhawk.java7.numericliterals;
+
+import static io.github.successhawk.java7.numericliterals.NumericLiteralParser.*;
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The expected values are the same literals compiled by javac.  parseLong and parseDouble read a literal
+ * without the L suffix as a long, unless they are asked to type it as javac does.
+ */
+public class NumericLiteralParserTest {
+
+	private static void assertInvalidInt(String literal) {
+		try {
+			parseInt(literal);
+			fail(literal);
+		} catch (NumberFormatException expected) {
+		}
+	}
+
+	private static void assertInvalidLong(String literal) {
+		try {
+			parseLong(literal);
+			fail(literal);
+		} catch (NumberFormatException expected) {
+		}
+	}
+
+	private static void assertInvalidDouble(String literal) {
+		try {
+			parseDouble(literal);
+			fail(literal);
+		} catch (NumberFormatException expected) {
+		}
+	}
+
+	@Test public void testInt() {
+		assertEquals(100, parseInt("100"));
+		assertEquals(0144, parseInt("0144"));
+		assertEquals(0x64, parseInt("0x64"));
+		assertEquals(0b1100100, parseInt("0b1100100"));
+		assertEquals(0B11111111, parseInt("0B11111111"));
+		assertEquals(-0b11111111, parseInt("-0b11111111"));
+		assertEquals(1_000_000, parseInt("1_000_000"));
+		assertEquals(0x7f_ff_ff_ff, parseInt("0x7f_ff_ff_ff"));
+		assertEquals(0xffffffff, parseInt("0xFFFFFFFF"));
+		assertEquals(-0x80000000, parseInt("-0x80000000"));
+		assertEquals(037777777777, parseInt("037777777777"));
+		assertEquals(0_7, parseInt("0_7"));
+		assertEquals(0, parseInt("0"));
+		assertEquals(00, parseInt("00"));
+		assertEquals(-2147483648, parseInt("-2147483648"));
+		assertEquals(2147483647, parseInt("+2147483647"));
+		assertEquals(1__0, parseInt("x1__0y", 1, 5));
+	}
+
+	@Test public void testInvalidInt() {
+		assertInvalidInt("2147483648");
+		assertInvalidInt("-2147483649");
+		assertInvalidInt("0x1_0000_0000");
+		assertInvalidInt("0b1_00000000_00000000_00000000_00000000");
+		assertInvalidInt("040000000000");
+		assertInvalidInt("1L");
+		assertInvalidInt("");
+		assertInvalidInt("-");
+		assertInvalidInt("0x");
+		assertInvalidInt("0b");
+		assertInvalidInt("0x_1");
+		assertInvalidInt("0b_1");
+		assertInvalidInt("_1");
+		assertInvalidInt("1_");
+		assertInvalidInt("0_");
+		assertInvalidInt("09");
+		assertInvalidInt("0b2");
+		assertInvalidInt("0xg");
+		assertInvalidInt("1.0");
+		assertInvalidInt("--1");
+	}
+
+	@Test public void testLong() {
+		assertEquals(0x7fff_ffff_ffff_ffffL, parseLong("0x7fff_ffff_ffff_ffffL"));
+		assertEquals(123_45_6789L, parseLong("123_45_6789L"));
+		assertEquals(404_992_7865L, parseLong("404_992_7865l"));
+		assertEquals(0b01111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L,
+				parseLong("0b01111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L"));
+		assertEquals(0b1000000000000000000000000000000000000000000000000000000000000000L,
+				parseLong("0b1000000000000000000000000000000000000000000000000000000000000000L"));
+		assertEquals(Long.MIN_VALUE, parseLong("-0b1000000000000000000000000000000000000000000000000000000000000000L"));
+		assertEquals(-0b111111111111111111111111111111111111111111111111111111111111111L,
+				parseLong("-0b111111111111111111111111111111111111111111111111111111111111111L"));
+		assertEquals(01777777777777777777777L, parseLong("01777777777777777777777L"));
+		assertEquals(Long.MIN_VALUE, parseLong("-9223372036854775808L"));
+		assertEquals(Long.MAX_VALUE, parseLong("9223372036854775807L"));
+		assertEquals(0xffffffffL, parseLong("0xffffffffL"));
+		assertEquals(-2147483648, parseLong("-2147483648"));
+		assertEquals(2147483648L, parseLong("2147483648L"));
+		/* without the suffix, as in configuration files */
+		assertEquals(Long.MAX_VALUE, parseLong("9223372036854775807"));
+		assertEquals(0xffffffffL, parseLong("0xffffffff"));
+		assertEquals(3000000000L, parseLong("3000000000"));
+		assertEquals(10_000_000_000L, parseLong("10_000_000_000"));
+		assertEquals(-3000000000L, parseLong("-3000000000"));
+	}
+
+	@Test public void testLongTypedAsJavac() {
+		assertEquals(0xffffffff, parseLong("0xffffffff", 0, 10, true));
+		assertEquals(0xffffffffL, parseLong("0xffffffffL", 0, 11, true));
+		assertEquals(-2147483648, parseLong("-2147483648", 0, 11, true));
+		assertEquals(3000000000L, parseLong("3000000000L", 0, 11, true));
+		for (String literal : new String[] { "2147483648", "3000000000", "0x1_0000_0000", "9223372036854775807" }) {
+			try {
+				parseLong(literal, 0, literal.length(), true);
+				fail(literal);
+			} catch (NumberFormatException expected) {
+			}
+		}
+	}
+
+	@Test public void testInvalidLong() {
+		assertInvalidLong("9223372036854775808L");
+		assertInvalidLong("-9223372036854775809");
+		assertInvalidLong("0x1_0000_0000_0000_0000L");
+		assertInvalidLong("02000000000000000000000L");
+		assertInvalidLong("404_992_7865_L");
+		assertInvalidLong("L");
+		assertInvalidLong("1LL");
+		assertInvalidLong("9223372036854775808");
+		assertInvalidLong("0x1_0000_0000_0000_0000");
+	}
+
+	@Test public void testRandomAgainstLongParse() {
+		Random random = new Random(7);
+		for (int i = 0; i < 10000; i++) {
+			long value = random.nextLong() >> random.nextInt(64);
+			assertEquals(value, parseLong(Long.toString(value) + "L"));
+			assertEquals(value, parseLong("0x" + Long.toHexString(value) + "L"));
+			assertEquals(value, parseLong("0b" + Long.toBinaryString(value) + "L"));
+			assertEquals(value, parseLong("0" + Long.toOctalString(value) + "L"));
+			assertEquals(value, parseLong(Long.toString(value)));
+			assertEquals(value, parseLong("0" + Long.toOctalString(value)));
+			assertEquals((int) value, parseLong("0x" + Integer.toHexString((int) value), 0, Integer.toHexString((int) value).length() + 2, true));
+			assertEquals((int) value, parseInt(Integer.toString((int) value)));
+			assertEquals((int) value, parseInt("0x" + Integer.toHexString((int) value)));
+		}
+	}
+
+	@Test public void testDouble() {
+		assertEquals(3.141_592_653_589_793_238d, parseDouble("3.141_592_653_589_793_238d"), 0);
+		assertEquals(1.5, parseDouble("1.5"), 0);
+		assertEquals(-0.001, parseDouble("-0.001"), 0);
+		assertEquals(.5, parseDouble(".5"), 0);
+		assertEquals(5., parseDouble("5."), 0);
+		assertEquals(1e10, parseDouble("1e10"), 0);
+		assertEquals(1_0e-1_0, parseDouble("1_0e-1_0"), 0);
+		assertEquals(2.5f, parseDouble("2.5f"), 0);
+		assertEquals(09.5, parseDouble("09.5"), 0);
+		assertEquals(0144, parseDouble("0144"), 0);
+		assertEquals(0b01, parseDouble("0b01"), 0);
+		assertEquals(0x10, parseDouble("0x10"), 0);
+		assertEquals(100L, parseDouble("100L"), 0);
+		assertEquals(0xffffffffL, parseDouble("0xffffffff"), 0);
+		assertEquals(12345678901L, parseDouble("12345678901"), 0);
+		assertEquals(12_345_678_901L, parseDouble("12_345_678_901"), 0);
+		assertEquals(0xffffffffL, parseDouble("0xffffffffL"), 0);
+		assertEquals(037777777777L, parseDouble("037777777777"), 0);
+		assertEquals(0x1.8p1, parseDouble("0x1.8p1"), 0);
+		assertEquals(0x1_0.8p1_0d, parseDouble("0x1_0.8p1_0d"), 0);
+		assertEquals(1.7976931348623157e308, parseDouble("1.7976931348623157e308"), 0);
+		assertEquals(4.9e-324, parseDouble("4.9e-324"), 0);
+		assertEquals(0.1 + 0.2, parseDouble("0.30000000000000004"), 0);
+		assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(parseDouble("-0.0")));
+		assertEquals(0.0, parseDouble("0e999999"), 0);
+	}
+
+	@Test public void testInvalidDouble() {
+		assertInvalidDouble("3._141");
+		assertInvalidDouble("3_.141");
+		assertInvalidDouble("1e_5");
+		assertInvalidDouble("1_e5");
+		assertInvalidDouble("1e");
+		assertInvalidDouble(".");
+		assertInvalidDouble("1.5.5");
+		assertInvalidDouble("1e400");
+		assertInvalidDouble("1e-400");
+		assertInvalidDouble("0x1_p1");
+		assertInvalidDouble("0x1p1_d");
+		assertInvalidDouble("0x1.8");
+		assertInvalidDouble("09");
+		assertInvalidDouble("");
+		assertInvalidDouble("-");
+		assertInvalidDouble("NaN");
+		assertInvalidDouble("Infinity");
+		assertInvalidDouble("9223372036854775808");
+	}
+
+	@Test public void testRandomAgainstDoubleParse() {
+		Random random = new Random(11);
+		for (int i = 0; i < 10000; i++) {
+			double value = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+			String text = Double.toString(value);
+			assertEquals(text, Double.parseDouble(text), parseDouble(text), 0);
+			String shortText = String.format("%.6f", value);
+			assertEquals(shortText, Double.parseDouble(shortText), parseDouble(shortText), 0);
+		}
+	}
+
+	@Test public void testBytes() {
+		byte[] buf = "a=0x7f_ff,b=-0b101L,c=1_000.25d".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(0x7fff, parseInt(buf, 2, 7));
+		assertEquals(-0b101L, parseLong(buf, 12, 7));
+		assertEquals(1_000.25d, parseDouble(buf, 22, 9), 0);
+	}
+}
@@ -0,0 +1,101 @@
+package io.github.successhawk.java7.numericliterals;
+
+import static org.junit.Assert.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RadixFormatterTest {
+
+	@Test public void testPredefined() {
+		assertEquals("0b01111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L",
+				RadixFormatter.BINARY.toString(Long.MAX_VALUE));
+		assertEquals("0x7fff_ffff_ffff_ffffL", RadixFormatter.HEX.toString(Long.MAX_VALUE));
+		assertEquals("0x0000_0000_0000_0064L", RadixFormatter.HEX.toString(100));
+		assertEquals("0144L", RadixFormatter.OCTAL.toString(100));
+		assertEquals("00L", RadixFormatter.OCTAL.toString(0));
+		assertEquals("01777777777777777777777L", RadixFormatter.OCTAL.toString(-1));
+	}
+
+	@Test public void testCustom() {
+		RadixFormatter formatter = new RadixFormatter(2, 1, 4, ' ', "", "");
+		assertEquals("110 0100", formatter.toString(100));
+		assertEquals("0", formatter.toString(0));
+		assertEquals(Long.toBinaryString(Long.MIN_VALUE), formatter.toString(Long.MIN_VALUE).replace(" ", ""));
+		RadixFormatter hex = new RadixFormatter(16, 8, 0, '_', "#", "");
+		assertEquals("#ffffffff", hex.toString(-1 & 0xffffffffL));
+		assertEquals("#ffffffffffffffff", hex.toString(-1));
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testRadix() {
+		new RadixFormatter(10, 1, 3, ',', "", "");
+	}
+
+	@Test public void testRoundTrip() {
+		Random random = new Random(3);
+		RadixFormatter[] formatters = { RadixFormatter.BINARY, RadixFormatter.HEX, RadixFormatter.OCTAL,
+				new RadixFormatter(16, 1, 2, '_', "0x", "L") };
+		for (int i = 0; i < 1000; i++) {
+			long value = random.nextLong() >> random.nextInt(64);
+			for (RadixFormatter formatter : formatters) {
+				String text = formatter.toString(value);
+				assertEquals(text.length(), formatter.length(value));
+				assertEquals(text, value, NumericLiteralParser.parseLong(text));
+			}
+		}
+	}
+
+	@Test public void testDestinations() {
+		long value = 0x7f_ff_ff_ffL;
+		String expected = RadixFormatter.HEX.toString(value);
+
+		char[] chars = new char[40];
+		Arrays.fill(chars, '.');
+		assertEquals(2 + expected.length(), RadixFormatter.HEX.format(value, chars, 2));
+		assertEquals(".." + expected, new String(chars, 0, 2 + expected.length()));
+
+		assertEquals("x=" + expected, RadixFormatter.HEX.format(value, new StringBuilder("x=")).toString());
+
+		ByteBuffer buffer = ByteBuffer.allocate(40);
+		RadixFormatter.HEX.format(value, buffer);
+		assertEquals(expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+	}
+
+	@Test public void testTooSmall() {
+		try {
+			RadixFormatter.HEX.format(1, new char[10], 0);
+			fail();
+		} catch (ArrayIndexOutOfBoundsException expected) {
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(10);
+		try {
+			RadixFormatter.HEX.format(1, buffer);
+			fail();
+		} catch (BufferOverflowException expected) {
+		}
+		assertEquals(0, buffer.position());
+	}
+
+	@Test public void testFormatAll() {
+		long[] values = { 0, 1, -1, 0b1100100 };
+		String expected = "0x0000_0000_0000_0001L\n0xffff_ffff_ffff_ffffL\n0x0000_0000_0000_0064L";
+		assertEquals(expected.length(), RadixFormatter.HEX.length(values, 1, 4, "\n"));
+
+		char[] chars = new char[expected.length()];
+		assertEquals(chars.length, RadixFormatter.HEX.formatAll(values, 1, 4, "\n", chars, 0));
+		assertEquals(expected, new String(chars));
+
+		assertEquals(expected, RadixFormatter.HEX.formatAll(values, 1, 4, "\n", new StringBuilder()).toString());
+
+		ByteBuffer buffer = ByteBuffer.allocate(expected.length());
+		RadixFormatter.HEX.formatAll(values, 1, 4, "\n", buffer);
+		assertEquals(expected, new String(buffer.array(), StandardCharsets.US_ASCII));
+
+		assertEquals("", RadixFormatter.HEX.formatAll(values, 0, 0, "\n", new StringBuilder()).toString());
+	}
+}
@@ -0,0 +1,113 @@
+package io.github.successhawk.java7.switchstatement;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class BooleanColumnParserTest {
+
+	private static final String[] WORDS = { "true", "yes", "false", "no", "True", "NO", "garbage", "", "tru", "nope", "fals" };
+
+	private static boolean bit(long[] bits, int index) {
+		return ((bits[index >>> 6] >>> index) & 1) != 0;
+	}
+
+	/** Checks the bitsets against parseBoolean, or parseBooleanIgnoreCase. */
+	private static int check(List<String> cells, long[] values, long[] valid, boolean ignoreCase) {
+		int invalid = 0;
+		for (int i = 0; i < cells.size(); i++) {
+			Boolean expected;
+			try {
+				expected = ignoreCase ? SwitchStatementWithStringExample.parseBooleanIgnoreCase(cells.get(i))
+						: SwitchStatementWithStringExample.parseBoolean(cells.get(i));
+			} catch (IllegalArgumentException e) {
+				expected = null;
+			}
+			if (expected == null) {
+				invalid++;
+				assertFalse("cell " + i, bit(valid, i));
+				assertFalse("cell " + i, bit(values, i));
+			} else {
+				assertTrue("cell " + i, bit(valid, i));
+				assertEquals("cell " + i, expected, bit(values, i));
+			}
+		}
+		return invalid;
+	}
+
+	private static List<String> column(int size, long seed) {
+		Random random = new Random(seed);
+		List<String> cells = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			cells.add(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return cells;
+	}
+
+	@Test public void testParse() {
+		List<String> cells = column(1000, 1);
+		cells.set(3, null);
+		for (boolean ignoreCase : new boolean[] { false, true }) {
+			long[] values = new long[BooleanColumnParser.words(cells.size())];
+			long[] valid = new long[values.length];
+			int invalid = BooleanColumnParser.parse(cells.toArray(new String[0]), values, valid, ignoreCase);
+			assertEquals(check(cells, values, valid, ignoreCase), invalid);
+		}
+	}
+
+	@Test public void testParseSlices() {
+		List<String> cells = column(300, 2);
+		StringBuilder text = new StringBuilder("header,");
+		int[] starts = new int[cells.size()];
+		int[] lengths = new int[cells.size()];
+		for (int i = 0; i < cells.size(); i++) {
+			starts[i] = text.length();
+			lengths[i] = cells.get(i).length();
+			text.append(cells.get(i)).append(',');
+		}
+		byte[] buf = text.toString().getBytes(StandardCharsets.UTF_8);
+		long[] values = new long[BooleanColumnParser.words(cells.size())];
+		long[] valid = new long[values.length];
+		int invalid = BooleanColumnParser.parse(buf, starts, lengths, values, valid, true);
+		assertEquals(check(cells, values, valid, true), invalid);
+	}
+
+	@Test public void testParseDelimited() {
+		List<String> cells = column(130, 3);
+		StringBuilder text = new StringBuilder();
+		for (String cell : cells) {
+			text.append(cell).append('\n');
+		}
+		byte[] buf = text.toString().getBytes(StandardCharsets.UTF_8);
+		assertEquals(cells.size(), BooleanColumnParser.cells(buf, 0, buf.length, (byte) '\n'));
+		assertEquals(cells.size(), BooleanColumnParser.cells(buf, 0, buf.length - 1, (byte) '\n'));
+		assertEquals(0, BooleanColumnParser.cells(buf, 0, 0, (byte) '\n'));
+		long[] values = new long[BooleanColumnParser.words(cells.size())];
+		long[] valid = new long[values.length];
+		int invalid = BooleanColumnParser.parseDelimited(buf, 0, buf.length, (byte) '\n', values, valid, false);
+		assertEquals(check(cells, values, valid, false), invalid);
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testBitsetsTooShort() {
+		BooleanColumnParser.parse(new String[65], new long[1], new long[2], false);
+	}
+
+	@Test public void testParseParallel() {
+		List<String> cells = column(5 * BooleanColumnParser.PARALLEL_THRESHOLD + 17, 4);
+		long[] values = new long[BooleanColumnParser.words(cells.size())];
+		long[] valid = new long[values.length];
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			int invalid = BooleanColumnParser.parseParallel(cells, values, valid, true, pool);
+			assertEquals(check(cells, values, valid, true), invalid);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package io.github.successhawk.java7.switchstatement;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import io.github.successhawk.java7.switchstatement.SwitchStatementWithStringExample.Bool;
+
+public class BooleanVocabularyTest {
+
+	@Test public void testStandard() {
+		BooleanVocabulary vocabulary = BooleanVocabulary.of("test", Arrays.asList("true", "yes"), Arrays.asList("false", "no"), false);
+		assertEquals(Bool.TRUE, vocabulary.parse("yes"));
+		assertEquals(Bool.FALSE, vocabulary.parse("false"));
+		assertEquals(Bool.INVALID, vocabulary.parse("True"));
+		assertEquals(Bool.INVALID, vocabulary.parse(null));
+		assertEquals(2, vocabulary.getInvalidCount());
+		assertEquals(2, vocabulary.resetInvalidCount());
+		assertEquals(0, vocabulary.getInvalidCount());
+	}
+
+	@Test public void testPredefined() {
+		assertEquals(Bool.TRUE, BooleanVocabulary.ON_OFF.parse("ON"));
+		assertEquals(Bool.FALSE, BooleanVocabulary.ON_OFF.parse("off"));
+		assertEquals(Bool.TRUE, BooleanVocabulary.ONE_ZERO.parse("1"));
+		assertEquals(Bool.INVALID, BooleanVocabulary.ONE_ZERO.parse("2"));
+		assertEquals(Bool.FALSE, BooleanVocabulary.Y_N.parse("N"));
+		assertEquals(Bool.TRUE, BooleanVocabulary.STANDARD_IGNORE_CASE.parse("YES"));
+		assertEquals(Bool.INVALID, BooleanVocabulary.STANDARD.parse("YES"));
+	}
+
+	@Test public void testLocalized() {
+		BooleanVocabulary german = BooleanVocabulary.of("de", Arrays.asList("ja", "wahr"), Arrays.asList("nein", "falsch"), true);
+		assertEquals(Bool.TRUE, german.parse("Ja"));
+		assertEquals(Bool.FALSE, german.parse("x,NEIN", 2, 6));
+		byte[] bytes = "FALSCH".getBytes(StandardCharsets.UTF_8);
+		assertEquals(Bool.FALSE, german.parse(bytes, 0, bytes.length));
+		BooleanVocabulary french = BooleanVocabulary.of("fr", Arrays.asList("vrai"), Arrays.asList("faux"), true);
+		assertEquals(Bool.INVALID, french.parse("oui"));
+		assertEquals(1, french.getInvalidCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testTrueAndFalse() {
+		BooleanVocabulary.of("both", Arrays.asList("x"), Arrays.asList("x"), false);
+	}
+}
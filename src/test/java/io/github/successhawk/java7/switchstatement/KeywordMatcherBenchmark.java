@@ -0,0 +1,149 @@
+package io.github.successhawk.java7.switchstatement;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares {@link KeywordMatcher} with a HashMap&lt;String, V&gt; on tokens that arrive in buffers, as they do
+ * from a parser, so that the HashMap first needs a String (and a lower case one, when case is ignored).  The
+ * baseline is a plain case sensitive HashMap.get on Strings that already exist, against a case sensitive matcher.
+ * Not a unit test, so surefire does not run it with the tests; run main().
+ * @author nwh02
+ *
+ */
+public class KeywordMatcherBenchmark {
+
+	private static final int KEYWORDS = 300;
+	private static final int TOKENS = 1 << 16;
+	private static final int ROUNDS = 200;
+
+	public static void main(String[] args) {
+		Map<String, Integer> keywords = new HashMap<>();
+		for (int i = 0; i < KEYWORDS; i++) {
+			keywords.put("status_" + Integer.toString(i * 7919, 36), i);
+		}
+		String[] names = keywords.keySet().toArray(new String[0]);
+		Random random = new Random(42);
+		StringBuilder[] tokens = new StringBuilder[TOKENS];
+		String[] exactTokens = new String[TOKENS];
+		byte[] buf = new byte[TOKENS * 32];
+		int[] starts = new int[TOKENS];
+		int[] lengths = new int[TOKENS];
+		byte[] exactBuf = new byte[TOKENS * 32];
+		int[] exactStarts = new int[TOKENS];
+		int[] exactLengths = new int[TOKENS];
+		int position = 0;
+		int exactPosition = 0;
+		for (int i = 0; i < TOKENS; i++) {
+			/* one in four is not a keyword */
+			String token = names[random.nextInt(names.length)];
+			token = random.nextInt(4) == 0 ? token + "x" : token;
+			exactTokens[i] = new String(token);
+			byte[] exactBytes = token.getBytes(StandardCharsets.UTF_8);
+			System.arraycopy(exactBytes, 0, exactBuf, exactPosition, exactBytes.length);
+			exactStarts[i] = exactPosition;
+			exactLengths[i] = exactBytes.length;
+			exactPosition += exactBytes.length;
+			token = random.nextBoolean() ? token.toUpperCase(Locale.ROOT) : token;
+			tokens[i] = new StringBuilder(token);
+			byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+			System.arraycopy(bytes, 0, buf, position, bytes.length);
+			starts[i] = position;
+			lengths[i] = bytes.length;
+			position += bytes.length;
+		}
+		KeywordMatcher<Integer> matcher = KeywordMatcher.compile(keywords, true);
+		KeywordMatcher<Integer> caseSensitive = KeywordMatcher.compile(keywords, false);
+
+		for (int run = 0; run < 3; run++) {
+			long sink = 0;
+			long start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (String token : exactTokens) {
+					Integer value = keywords.get(token);
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("HashMap.get(String), case sensitive", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (String token : exactTokens) {
+					Integer value = caseSensitive.get(token);
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("KeywordMatcher.get(String), case sensitive", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < TOKENS; i++) {
+					Integer value = keywords.get(new String(exactBuf, exactStarts[i], exactLengths[i], StandardCharsets.UTF_8));
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("HashMap.get(new String(bytes)), case sensitive", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < TOKENS; i++) {
+					Integer value = caseSensitive.get(exactBuf, exactStarts[i], exactLengths[i]);
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("KeywordMatcher.get(bytes), case sensitive", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (StringBuilder token : tokens) {
+					Integer value = keywords.get(token.toString().toLowerCase(Locale.ROOT));
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("HashMap.get(toString().toLowerCase())", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < TOKENS; i++) {
+					Integer value = keywords.get(new String(buf, starts[i], lengths[i], StandardCharsets.UTF_8).toLowerCase(Locale.ROOT));
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("HashMap.get(new String(bytes).toLowerCase())", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (StringBuilder token : tokens) {
+					Integer value = matcher.get(token);
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("KeywordMatcher.get(CharSequence)", start, sink);
+
+			sink = 0;
+			start = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int i = 0; i < TOKENS; i++) {
+					Integer value = matcher.get(buf, starts[i], lengths[i]);
+					sink += value == null ? -1 : value;
+				}
+			}
+			report("KeywordMatcher.get(bytes)", start, sink);
+			System.out.println();
+		}
+	}
+
+	private static void report(String name, long start, long sink) {
+		double nanos = (double) (System.nanoTime() - start) / ((long) ROUNDS * TOKENS);
+		System.out.println(String.format("%-50s %6.1f ns/lookup (%d)", name, nanos, sink));
+	}
+}
@@ -0,0 +1,80 @@
+package io.github.successhawk.java7.switchstatement;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class KeywordMatcherTest {
+
+	private static Map<String, Integer> methods() {
+		Map<String, Integer> keywords = new HashMap<>();
+		String[] names = { "GET", "HEAD", "POST", "PUT", "DELETE", "CONNECT", "OPTIONS", "TRACE", "PATCH", "gr\u00fc\u00dfe" };
+		for (int i = 0; i < names.length; i++) {
+			keywords.put(names[i], i);
+		}
+		return keywords;
+	}
+
+	private static byte[] utf8(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test public void testCaseSensitive() {
+		KeywordMatcher<Integer> matcher = KeywordMatcher.compile(methods(), false);
+		assertEquals(10, matcher.size());
+		for (Map.Entry<String, Integer> entry : methods().entrySet()) {
+			assertEquals(entry.getValue(), matcher.get(entry.getKey()));
+			assertEquals(entry.getValue(), matcher.get(new StringBuilder(entry.getKey())));
+			byte[] bytes = utf8("[" + entry.getKey() + "]");
+			assertEquals(entry.getValue(), matcher.get(bytes, 1, bytes.length - 2));
+		}
+		assertNull(matcher.get("get"));
+		assertNull(matcher.get(utf8("Post"), 0, 4));
+		assertNull(matcher.get("GETS"));
+		assertNull(matcher.get(""));
+		assertNull(matcher.get((CharSequence) null));
+		assertEquals(Integer.valueOf(3), matcher.get("xPUTx", 1, 4));
+	}
+
+	@Test public void testIgnoreCase() {
+		KeywordMatcher<Integer> matcher = KeywordMatcher.compile(methods(), true);
+		assertEquals(Integer.valueOf(0), matcher.get("get"));
+		assertEquals(Integer.valueOf(2), matcher.get(utf8("pOsT"), 0, 4));
+		assertEquals(Integer.valueOf(9), matcher.get("GR\u00fc\u00dfE"));
+		/* only ASCII letters are folded */
+		assertNull(matcher.get("GR\u00dc\u00dfE"));
+		byte[] bytes = utf8("GR\u00fc\u00dfE");
+		assertEquals(Integer.valueOf(9), matcher.get(bytes, 0, bytes.length));
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testDuplicateIgnoringCase() {
+		Map<String, Integer> keywords = methods();
+		keywords.put("get", 99);
+		KeywordMatcher.compile(keywords, true);
+	}
+
+	@Test public void testEmpty() {
+		KeywordMatcher<Integer> matcher = KeywordMatcher.compile(Collections.<String, Integer> emptyMap(), false);
+		assertNull(matcher.get("GET"));
+		assertNull(matcher.get(new byte[0], 0, 0));
+	}
+
+	@Test public void testManyKeywords() {
+		Map<String, Integer> keywords = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			keywords.put("STATUS_" + i, i);
+		}
+		KeywordMatcher<Integer> matcher = KeywordMatcher.compile(keywords, true);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(Integer.valueOf(i), matcher.get("status_" + i));
+			byte[] bytes = utf8("Status_" + i);
+			assertEquals(Integer.valueOf(i), matcher.get(bytes, 0, bytes.length));
+			assertNull(matcher.get("STATUS_" + (i + 1000)));
+		}
+	}
+}
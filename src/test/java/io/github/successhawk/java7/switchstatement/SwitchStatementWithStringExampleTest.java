@@ -1,4 +1,6 @@
 package io.github.successhawk.java7.switchstatement;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
 import static io.github.successhawk.java7.switchstatement.SwitchStatementWithStringExample.*;
@@ -60,6 +62,49 @@ public class SwitchStatementWithStringExampleTest {
 		parseBooleanIgnoreCase("garbage");
 	}
 
+	@Test public void testParseBooleanIgnoreCase_CharSequence() {
+		assertTrue( parseBooleanIgnoreCase(new StringBuilder("YeS")));
+		assertTrue( parseBooleanIgnoreCase((CharSequence)"TRUE"));
+		assertFalse( parseBooleanIgnoreCase(new StringBuilder("No")));
+		assertFalse( parseBooleanIgnoreCase(new StringBuilder("fALSE")));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testParseBooleanIgnoreCase_CharSequence_null() {
+		parseBooleanIgnoreCase((CharSequence)null);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testParseBooleanIgnoreCase_CharSequence_notAscii() {
+		/* a dotless i must not fold to an ASCII letter */
+		parseBooleanIgnoreCase(new StringBuilder("tru\u0131"));
+	}
+
+	@Test public void testParseBooleanIgnoreCase_bytes() {
+		byte[] buf = "x,TRUE,no,False,yes".getBytes(StandardCharsets.US_ASCII);
+		assertTrue( parseBooleanIgnoreCase(buf, 2, 4));
+		assertFalse( parseBooleanIgnoreCase(buf, 7, 2));
+		assertFalse( parseBooleanIgnoreCase(buf, 10, 5));
+		assertTrue( parseBooleanIgnoreCase(buf, 16, 3));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testParseBooleanIgnoreCase_bytes_garbage() {
+		byte[] buf = "x,TRUE,no".getBytes(StandardCharsets.US_ASCII);
+		parseBooleanIgnoreCase(buf, 0, 4);
+	}
+
+	@Test public void testParseBool() {
+		assertEquals(Bool.TRUE, parseBool("yes"));
+		assertEquals(Bool.FALSE, parseBool(new StringBuilder("no")));
+		assertEquals(Bool.INVALID, parseBool("No"));
+		assertEquals(Bool.INVALID, parseBool(null));
+		assertEquals(Bool.TRUE, parseBoolIgnoreCase("True"));
+		assertEquals(Bool.INVALID, parseBoolIgnoreCase("garbage"));
+		byte[] buf = "FALSE".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(Bool.FALSE, parseBoolIgnoreCase(buf, 0, buf.length));
+		assertEquals(Bool.INVALID, parseBoolIgnoreCase(buf, 0, 4));
+	}
 	
 	
 	
@@ -0,0 +1,171 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackgroundCloserTest {
+
+	private static final Logger logger = Logger.getLogger(BackgroundCloserTest.class);
+
+	private final List<LoggingEvent> events = new ArrayList<>();
+	private final AppenderSkeleton appender = new AppenderSkeleton() {
+		@Override
+		protected synchronized void append(LoggingEvent event) {
+			events.add(event);
+		}
+
+		@Override
+		public boolean requiresLayout() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	@Before
+	public void setUp() {
+		logger.addAppender(appender);
+	}
+
+	@After
+	public void tearDown() {
+		logger.removeAppender(appender);
+	}
+
+	private static void pause(CountDownLatch latch, long millis) {
+		try {
+			latch.await(millis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** Records the thread that closed it. */
+	private static class Resource implements AutoCloseable {
+		final AtomicInteger closes = new AtomicInteger();
+		volatile Thread closedBy;
+
+		@Override
+		public void close() {
+			closedBy = Thread.currentThread();
+			closes.incrementAndGet();
+		}
+	}
+
+	@Test public void testClosedOffTheCallingThread() {
+		Resource resource = new Resource();
+		try (BackgroundCloser closer = new BackgroundCloser(2, 10, logger, Level.WARN, null)) {
+			try (BackgroundCloser.Deferred<Resource> deferred = closer.defer(resource)) {
+				assertSame(resource, deferred.get());
+			}
+		}
+		assertEquals(1, resource.closes.get());
+		assertNotSame(Thread.currentThread(), resource.closedBy);
+		assertTrue(resource.closedBy.getName(), resource.closedBy.getName().startsWith("background-closer-"));
+	}
+
+	@Test public void testClosedSynchronouslyWhenQueueIsFull() {
+		final CountDownLatch release = new CountDownLatch(1);
+		Resource blocking = new Resource() {
+			@Override
+			public void close() {
+				pause(release, TimeUnit.MINUTES.toMillis(1));
+				super.close();
+			}
+		};
+		Resource queued = new Resource();
+		Resource rejected = new Resource();
+		try (BackgroundCloser closer = new BackgroundCloser(1, 1, logger, Level.WARN, null)) {
+			/* The only thread takes the first, the queue holds the second, so the third is closed here. */
+			closer.defer(blocking).close();
+			closer.defer(queued).close();
+			closer.defer(rejected).close();
+			assertEquals(1, closer.getSynchronousCloseCount());
+			assertSame(Thread.currentThread(), rejected.closedBy);
+			assertEquals(0, queued.closes.get());
+			release.countDown();
+		}
+		assertEquals(1, blocking.closes.get());
+		assertEquals(1, queued.closes.get());
+		assertNotSame(Thread.currentThread(), queued.closedBy);
+	}
+
+	@Test public void testMetrics() {
+		final long sleepMillis = 20;
+		AutoCloseable failing = new AutoCloseable() {
+			@Override
+			public void close() throws IOException {
+				throw new IOException("Stale file handle");
+			}
+		};
+		AutoCloseable slow = new AutoCloseable() {
+			@Override
+			public void close() {
+				pause(new CountDownLatch(1), sleepMillis);
+			}
+		};
+		BackgroundCloser closer = new BackgroundCloser(1, 10, logger, Level.WARN, null);
+		closer.defer(failing).close();
+		closer.defer(slow).close();
+		closer.defer(new Resource()).close();
+		closer.close();
+		assertEquals(3, closer.getCloseCount());
+		assertEquals(1, closer.getFailureCount());
+		assertEquals(0, closer.getSynchronousCloseCount());
+		assertTrue(closer.getMaxCloseNanos() >= TimeUnit.MILLISECONDS.toNanos(sleepMillis));
+		assertTrue(closer.getAverageCloseNanos() >= TimeUnit.MILLISECONDS.toNanos(sleepMillis) / 3);
+		assertTrue(closer.getAverageCloseNanos() <= closer.getMaxCloseNanos());
+		assertEquals(1, events.size());
+		assertEquals("Stale file handle", events.get(0).getRenderedMessage());
+		assertNotNull(events.get(0).getThrowableInformation());
+	}
+
+	@Test public void testCloseDrainsTheQueue() {
+		List<Resource> resources = new ArrayList<>();
+		BackgroundCloser closer = new BackgroundCloser(1, 100, logger, Level.WARN, null);
+		for (int i = 0; i < 50; i++) {
+			Resource resource = new Resource() {
+				@Override
+				public void close() {
+					pause(new CountDownLatch(1), 1);
+					super.close();
+				}
+			};
+			resources.add(resource);
+			closer.defer(resource).close();
+		}
+		closer.close();
+		assertEquals(0, closer.getQueueDepth());
+		assertEquals(50, closer.getCloseCount());
+		for (Resource resource : resources) {
+			assertEquals(1, resource.closes.get());
+		}
+	}
+
+	@Test public void testSecondCloseOfDeferredIsIgnored() {
+		Resource resource = new Resource();
+		BackgroundCloser closer = new BackgroundCloser(1, 10, logger, Level.WARN, null);
+		BackgroundCloser.Deferred<Resource> deferred = closer.defer(resource);
+		deferred.close();
+		deferred.close();
+		closer.close();
+		assertEquals(1, resource.closes.get());
+		assertEquals(1, closer.getCloseCount());
+	}
+}
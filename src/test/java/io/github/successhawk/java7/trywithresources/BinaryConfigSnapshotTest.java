@@ -0,0 +1,131 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryConfigSnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path source;
+	private Path defaults;
+	private Path snapshot;
+
+	@Before
+	public void setUp() throws IOException {
+		source = folder.getRoot().toPath().resolve("site.properties");
+		defaults = folder.getRoot().toPath().resolve("defaults.properties");
+		snapshot = folder.getRoot().toPath().resolve("site.snapshot");
+		write(defaults, "timeout=10s\nretries=3\nname=default\n");
+		write(source, "retries=5\nenabled=yes\nname=site\nbig=9223372036854775807\n\u00e9t\u00e9=summer\n\ud83d\ude00=smile\n");
+	}
+
+	private static void write(Path path, String content) throws IOException {
+		/* Properties files are ISO-8859-1; \\u escapes carry everything else. */
+		StringBuilder escaped = new StringBuilder();
+		for (char c : content.toCharArray()) {
+			if (c > 0x7f) {
+				escaped.append(String.format("\\u%04x", (int) c));
+			} else {
+				escaped.append(c);
+			}
+		}
+		Files.write(path, escaped.toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	@Test public void testLookups() throws IOException {
+		BinaryConfigSnapshot config = BinaryConfigSnapshot.openOrRebuild(source, defaults, snapshot);
+		assertEquals(7, config.size());
+		assertEquals(5, config.getInt("retries", 0));
+		assertEquals(10000, config.getDurationMillis("timeout", 0));
+		assertTrue(config.getBoolean("enabled", false));
+		assertEquals("site", config.getString("name"));
+		assertEquals(Long.MAX_VALUE, config.getLong("big", 0));
+		assertEquals(-1, config.getInt("big", -1));
+		assertEquals("summer", config.getString("\u00e9t\u00e9"));
+		assertEquals("smile", config.getString("\ud83d\ude00"));
+		assertNull(config.getString("missing"));
+		assertNull(config.getString("nam"));
+		assertNull(config.getString("names"));
+		assertEquals(7, config.getInt("missing", 7));
+	}
+
+	@Test public void testRebuiltWhenSourceChanges() throws IOException {
+		assertEquals(5, BinaryConfigSnapshot.openOrRebuild(source, defaults, snapshot).getInt("retries", 0));
+		FileTime compiled = Files.getLastModifiedTime(snapshot);
+		assertEquals(5, BinaryConfigSnapshot.openOrRebuild(source, defaults, snapshot).getInt("retries", 0));
+		assertEquals(compiled, Files.getLastModifiedTime(snapshot));
+
+		write(source, "retries=6\n");
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 5000));
+		BinaryConfigSnapshot config = BinaryConfigSnapshot.openOrRebuild(source, defaults, snapshot);
+		assertEquals(6, config.getInt("retries", 0));
+		assertEquals("default", config.getString("name"));
+	}
+
+	@Test public void testRebuiltWhenCorrupt() throws IOException {
+		Files.write(snapshot, new byte[] { 1, 2, 3 });
+		assertEquals(5, BinaryConfigSnapshot.openOrRebuild(source, null, snapshot).getInt("retries", 0));
+	}
+
+	@Test public void testRebuiltWhenTruncatedOrCorrupt() throws IOException {
+		BinaryConfigSnapshot.openOrRebuild(source, defaults, snapshot);
+		byte[] good = Files.readAllBytes(snapshot);
+		FileTime modified = Files.getLastModifiedTime(snapshot);
+
+		/* Cut into the strings, cut into the index, a negative count, a key length past the end. */
+		byte[][] bad = { Arrays.copyOf(good, good.length - 1), Arrays.copyOf(good, 60), good.clone(), good.clone() };
+		ByteBuffer.wrap(bad[2]).putInt(8, -1);
+		ByteBuffer.wrap(bad[3]).putInt(48 + 4, Integer.MAX_VALUE);
+		for (byte[] content : bad) {
+			Files.write(snapshot, content);
+			Files.setLastModifiedTime(snapshot, modified);
+			try {
+				BinaryConfigSnapshot.open(snapshot);
+				fail("opened a corrupt snapshot");
+			} catch (IOException expected) {
+			}
+			BinaryConfigSnapshot config = BinaryConfigSnapshot.openOrRebuild(source, defaults, snapshot);
+			assertEquals(5, config.getInt("retries", 0));
+			assertEquals("smile", config.getString("\ud83d\ude00"));
+			assertArrayEquals(good, Files.readAllBytes(snapshot));
+		}
+	}
+
+	@Test public void testSnapshotPermissions() throws IOException {
+		assumeTrue(Files.getFileStore(folder.getRoot().toPath()).supportsFileAttributeView(PosixFileAttributeView.class));
+		/* A new snapshot is readable like any other new file, not by its owner only. */
+		BinaryConfigSnapshot.compile(source, defaults, snapshot);
+		Path created = folder.newFile("created").toPath();
+		assertEquals(Files.getPosixFilePermissions(created), Files.getPosixFilePermissions(snapshot));
+		/* A recompiled one keeps its permissions. */
+		Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+		Files.setPosixFilePermissions(snapshot, permissions);
+		BinaryConfigSnapshot.compile(source, null, snapshot);
+		assertEquals(permissions, Files.getPosixFilePermissions(snapshot));
+		assertEquals(5, BinaryConfigSnapshot.open(snapshot).getInt("retries", 0));
+	}
+
+	@Test(expected=IOException.class)
+	public void testOpenRejectsOtherFiles() throws IOException {
+		BinaryConfigSnapshot.open(source);
+	}
+}
@@ -0,0 +1,112 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CloseErrorRateLimiterTest {
+
+	private static final Logger logger = Logger.getLogger(CloseErrorRateLimiterTest.class);
+
+	private final List<LoggingEvent> events = new ArrayList<>();
+	private final AppenderSkeleton appender = new AppenderSkeleton() {
+		@Override
+		protected void append(LoggingEvent event) {
+			events.add(event);
+		}
+
+		@Override
+		public boolean requiresLayout() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	@Before
+	public void setUp() {
+		logger.addAppender(appender);
+	}
+
+	@After
+	public void tearDown() {
+		logger.removeAppender(appender);
+	}
+
+	private static AutoCloseable failingClose(final String message) {
+		return new AutoCloseable() {
+			@Override
+			public void close() throws IOException {
+				throw new IOException(message);
+			}
+		};
+	}
+
+	@Test public void testFirstOccurrencesLoggedThenSuppressed() {
+		CloseErrorRateLimiter limiter = new CloseErrorRateLimiter(3, 1, TimeUnit.HOURS, 100);
+		for (int i = 0; i < 1000; i++) {
+			try (PropertiesLoadExample.IgnoreCloseErrors<AutoCloseable> closeable = new PropertiesLoadExample.IgnoreCloseErrors<>(
+					failingClose("Stale file handle"), logger, Level.WARN, null, limiter)) {
+				assertNotNull(closeable.get());
+			}
+		}
+		assertEquals(3, events.size());
+		assertNotNull(events.get(0).getThrowableInformation());
+		assertEquals(1000, limiter.getCount(IOException.class, "Stale file handle"));
+	}
+
+	@Test public void testSummaries() {
+		CloseErrorRateLimiter limiter = new CloseErrorRateLimiter(1, 0, TimeUnit.NANOSECONDS, 100);
+		limiter.log(logger, Level.WARN, "close failed", new IOException("x"));
+		limiter.log(logger, Level.WARN, "close failed", new IOException("x"));
+		assertEquals(2, events.size());
+		assertNull(events.get(1).getThrowableInformation());
+		assertTrue(events.get(1).getRenderedMessage(), events.get(1).getRenderedMessage().contains("1 more java.io.IOException"));
+	}
+
+	@Test public void testTypesAndMessagesCountedSeparately() {
+		CloseErrorRateLimiter limiter = new CloseErrorRateLimiter(1, 1, TimeUnit.HOURS, 100);
+		limiter.log(logger, Level.WARN, "a", new IOException("a"));
+		limiter.log(logger, Level.WARN, "b", new IOException("b"));
+		limiter.log(logger, Level.WARN, "a", new IllegalStateException("a"));
+		limiter.log(logger, Level.WARN, "a", new IOException("a"));
+		assertEquals(3, events.size());
+	}
+
+	@Test public void testMessagesCappedPerType() {
+		CloseErrorRateLimiter limiter = new CloseErrorRateLimiter(1, 1, TimeUnit.HOURS, 2);
+		for (int i = 0; i < 5; i++) {
+			limiter.log(logger, Level.WARN, "io", new IOException("io" + i));
+		}
+		/* Another type still gets its own messages. */
+		limiter.log(logger, Level.WARN, "state", new IllegalStateException("state0"));
+		limiter.log(logger, Level.WARN, "state", new IllegalStateException("state1"));
+		assertEquals(1, limiter.getCount(IOException.class, "io0"));
+		assertEquals(1, limiter.getCount(IOException.class, "io1"));
+		assertEquals(0, limiter.getCount(IOException.class, "io2"));
+		assertEquals(3, limiter.getCount(IOException.class, "(other messages)"));
+		assertEquals(1, limiter.getCount(IllegalStateException.class, "state1"));
+		/* io0, io1, the first of the other messages and both of the other type. */
+		assertEquals(5, events.size());
+	}
+
+	@Test public void testWithoutLimiterEverythingIsLogged() {
+		for (int i = 0; i < 20; i++) {
+			new PropertiesLoadExample.IgnoreCloseErrors<>(failingClose("x"), logger, Level.WARN, null, null).close();
+		}
+		assertEquals(20, events.size());
+	}
+}
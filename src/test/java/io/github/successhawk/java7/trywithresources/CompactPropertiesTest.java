@@ -0,0 +1,157 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.github.successhawk.java7.switchstatement.SwitchStatementWithStringExample;
+
+public class CompactPropertiesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String SAMPLE =
+			"# comment\n"
+			+ "! another comment\n"
+			+ "   \n"
+			+ "plain=value\n"
+			+ "colon:value\n"
+			+ "space value with spaces  \n"
+			+ "  indented  =  spaced\n"
+			+ "empty=\n"
+			+ "keyOnly\n"
+			+ "escaped\\ key\\=x=a\\tb\\nc\\\\d\n"
+			+ "unicode=\\u00e9t\\u00e9\n"
+			+ "continued=one, \\\n"
+			+ "          two, \\\r\n"
+			+ "   three\n"
+			+ "windows=crlf\r\n"
+			+ "mac=cr\r"
+			+ "dup=first\n"
+			+ "dup=second\n"
+			+ "high=\u00ff\n"
+			+ "last=no newline";
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	@Test public void testSameAsProperties() throws IOException {
+		Properties expected = new Properties();
+		expected.load(new ByteArrayInputStream(bytes(SAMPLE)));
+		CompactProperties actual = CompactProperties.parse(bytes(SAMPLE));
+		assertEquals(expected.size(), actual.size());
+		for (String key : expected.stringPropertyNames()) {
+			assertEquals(key, expected.getProperty(key), actual.getString(key));
+		}
+		assertNull(actual.getString("missing"));
+	}
+
+	@Test public void testTypedGetters() {
+		CompactProperties properties = CompactProperties.parse(bytes(
+				"int=42\nlong=9223372036854775807\nnegative=-7\nyes=YES\nno=no\n"
+				+ "timeout=30s\nlinger=2m\nretry=250\ntext=abc\n"));
+		assertEquals(42, properties.getInt("int", 0));
+		assertEquals(-7, properties.getInt("negative", 0));
+		assertEquals(-1, properties.getInt("long", -1));
+		assertEquals(Long.MAX_VALUE, properties.getLong("long", 0));
+		assertTrue(properties.getBoolean("yes", false));
+		assertFalse(properties.getBoolean("no", true));
+		assertTrue(properties.getBoolean("text", true));
+		assertEquals(30000, properties.getDurationMillis("timeout", 0));
+		assertEquals(120000, properties.getDurationMillis("linger", 0));
+		assertEquals(250, properties.getDurationMillis("retry", 0));
+		assertEquals(-1, properties.getDurationMillis("negative", -1));
+		assertEquals(5, properties.getInt("text", 5));
+		assertEquals(5, properties.getInt("missing", 5));
+	}
+
+	/** The flags must be what Long.parseLong and parseBooleanIgnoreCase(String) would give, without their exceptions. */
+	@Test public void testParseTypesMatchesThrowingParsers() {
+		String[] values = { "0", "+5", "-7", "007", " 42 ", "2147483648", "-2147483649", "9223372036854775807",
+				"-9223372036854775808", "9223372036854775808", "-9223372036854775809", "", "-", "+", "1_000", "0x10",
+				"1.5", "12 s", "12s", "5 ms", "3d", "3 x", "s", "1234567890123456789s", " Yes ", "FALSE", "truth", "abc" };
+		long[] numbers = new long[1];
+		long[] durations = new long[1];
+		for (String value : values) {
+			byte types = CompactProperties.parseTypes(value, numbers, durations, 0);
+			String trimmed = value.trim();
+			Long expected;
+			try {
+				expected = Long.parseLong(trimmed);
+			} catch (NumberFormatException e) {
+				expected = null;
+			}
+			assertEquals(value, expected != null, (types & CompactProperties.LONG) != 0);
+			if (expected != null) {
+				assertEquals(value, expected.longValue(), numbers[0]);
+				assertEquals(value, expected == expected.intValue(), (types & CompactProperties.INT) != 0);
+			}
+			Boolean expectedBoolean;
+			try {
+				expectedBoolean = SwitchStatementWithStringExample.parseBooleanIgnoreCase(trimmed);
+			} catch (IllegalArgumentException e) {
+				expectedBoolean = null;
+			}
+			assertEquals(value, expectedBoolean != null, (types & CompactProperties.BOOLEAN) != 0);
+			assertEquals(value, Boolean.TRUE.equals(expectedBoolean), (types & CompactProperties.TRUE) != 0);
+		}
+		assertEquals(12000, durationOf("12 s"));
+		assertEquals(3L * 24 * 60 * 60 * 1000, durationOf("3d"));
+		assertEquals(5, durationOf("5 ms"));
+		assertEquals(7, durationOf("7"));
+		assertEquals(-1, durationOf("3 x"));
+		assertEquals(-1, durationOf("1234567890123456789s"));
+		assertEquals(-1, durationOf("-7"));
+	}
+
+	private static long durationOf(String value) {
+		long[] durations = new long[1];
+		byte types = CompactProperties.parseTypes(value, new long[1], durations, 0);
+		return (types & CompactProperties.DURATION) != 0 ? durations[0] : -1;
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testMalformedUnicodeEscape() {
+		CompactProperties.parse(bytes("bad=\\u12g4\n"));
+	}
+
+	@Test public void testManyKeys() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("key.").append(i).append('=').append(i).append('\n');
+		}
+		CompactProperties properties = CompactProperties.parse(bytes(sb.toString()));
+		assertEquals(5000, properties.size());
+		for (int i = 0; i < 5000; i++) {
+			assertEquals(i, properties.getInt("key." + i, -1));
+		}
+	}
+
+	@Test public void testLayeredLoad() throws IOException, InterruptedException {
+		List<Path> layers = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			Path layer = folder.getRoot().toPath().resolve("layer" + i + ".properties");
+			Files.write(layer, bytes("layer=" + i + "\nonly." + i + "=x\n" + (i % 2 == 0 ? "even=" + i + "\n" : "")));
+			layers.add(layer);
+		}
+		layers.add(3, folder.getRoot().toPath().resolve("missing.properties"));
+		CompactProperties properties = LayeredPropertiesLoader.load(layers, 8);
+		assertEquals(39, properties.getInt("layer", -1));
+		assertEquals(38, properties.getInt("even", -1));
+		assertEquals("x", properties.getString("only.0"));
+		assertEquals(42, properties.size());
+	}
+}
@@ -0,0 +1,46 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Crc32cTest {
+
+	@Test public void testCheckValue() {
+		/* The standard check value of CRC-32C. */
+		Crc32c crc = new Crc32c();
+		byte[] bytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+		crc.update(bytes, 0, bytes.length);
+		assertEquals(0xE3069283L, crc.getValue());
+	}
+
+	@Test public void testEmpty() {
+		assertEquals(0, new Crc32c().getValue());
+	}
+
+	@Test public void testBulkSameAsSingleBytes() {
+		byte[] bytes = new byte[1000];
+		new Random(7).nextBytes(bytes);
+		for (int off = 0; off < 9; off++) {
+			for (int len = 0; len < 40; len++) {
+				Crc32c bulk = new Crc32c();
+				bulk.update(bytes, off, len);
+				Crc32c single = new Crc32c();
+				for (int i = off; i < off + len; i++) {
+					single.update(bytes[i]);
+				}
+				assertEquals(single.getValue(), bulk.getValue());
+			}
+		}
+	}
+
+	@Test public void testReset() {
+		Crc32c crc = new Crc32c();
+		crc.update(42);
+		crc.reset();
+		assertEquals(0, crc.getValue());
+	}
+}
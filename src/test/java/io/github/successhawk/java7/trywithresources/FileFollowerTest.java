@@ -0,0 +1,84 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileFollowerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path log;
+
+	@Before
+	public void setUp() {
+		log = folder.getRoot().toPath().resolve("app.log");
+	}
+
+	private void append(String content) throws IOException {
+		Files.write(log, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	@Test public void testOnlyNewCompleteLines() throws IOException {
+		try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8)) {
+			append("one\r\ntwo\nthr");
+			assertEquals(Arrays.asList("one", "two"), follower.poll(log));
+			assertEquals(Collections.emptyList(), follower.poll(log));
+			append("ee\nfour\n");
+			assertEquals(Arrays.asList("three", "four"), follower.poll(log));
+			assertEquals(Files.size(log), follower.getOffset(log));
+		}
+	}
+
+	@Test public void testFromEnd() throws IOException {
+		try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8)) {
+			append("old\n");
+			follower.follow(log, true);
+			append("new\n");
+			assertEquals(Arrays.asList("new"), follower.poll(log));
+		}
+	}
+
+	@Test public void testTruncated() throws IOException {
+		try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8)) {
+			append("a long first line\n");
+			follower.poll(log);
+			Files.write(log, "short\n".getBytes(StandardCharsets.UTF_8));
+			assertEquals(Arrays.asList("short"), follower.poll(log));
+		}
+	}
+
+	@Test public void testRotated() throws IOException {
+		try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8)) {
+			append("before rotation\n");
+			follower.poll(log);
+			Files.move(log, log.resolveSibling("app.log.1"), StandardCopyOption.ATOMIC_MOVE);
+			assertEquals(Collections.emptyList(), follower.poll(log));
+			append("after rotation, longer than before\n");
+			assertEquals(Arrays.asList("after rotation, longer than before"), follower.poll(log));
+		}
+	}
+
+	@Test public void testLongLine() throws IOException {
+		char[] chars = new char[20000];
+		Arrays.fill(chars, 'x');
+		String line = new String(chars);
+		try (FileFollower follower = new FileFollower(StandardCharsets.UTF_8)) {
+			append(line + "\nnext\n");
+			assertEquals(Arrays.asList(line, "next"), follower.poll(log));
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FirstLineBatchReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String name, String content) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(name);
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		return path;
+	}
+
+	@Test public void testGlob() throws IOException, InterruptedException {
+		Path a = write("a.csv", "first a\nsecond");
+		Path b = write("b.csv", "first b");
+		write("c.txt", "not matched");
+		folder.newFolder("d.csv");
+		try (FirstLineBatchReader reader = new FirstLineBatchReader(2, StandardCharsets.UTF_8)) {
+			FirstLineBatchReader.Result result = reader.readAll(folder.getRoot().toPath(), "*.csv");
+			assertEquals(2, result.getLines().size());
+			assertEquals("first a", result.getLines().get(a));
+			assertEquals("first b", result.getLines().get(b));
+			assertTrue(result.getFailures().isEmpty());
+		}
+	}
+
+	@Test public void testFailuresDoNotStopTheBatch() throws IOException, InterruptedException {
+		Path a = write("a.csv", "first a");
+		Path missing = folder.getRoot().toPath().resolve("missing.csv");
+		Path b = write("b.csv", "");
+		try (FirstLineBatchReader reader = new FirstLineBatchReader(1, StandardCharsets.UTF_8)) {
+			FirstLineBatchReader.Result result = reader.readAll(Arrays.asList(a, missing, b));
+			assertEquals(2, result.getLines().size());
+			assertEquals("first a", result.getLines().get(a));
+			assertTrue(result.getLines().containsKey(b));
+			assertNull(result.getLines().get(b));
+			assertEquals(1, result.getFailures().size());
+			assertTrue(result.getFailures().get(missing) instanceof NoSuchFileException);
+		}
+	}
+
+	@Test public void testConcurrencyIsBounded() throws InterruptedException {
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		List<Path> paths = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			paths.add(folder.getRoot().toPath().resolve("file" + i));
+		}
+		FirstLineBatchReader.LineSource source = new FirstLineBatchReader.LineSource() {
+			@Override
+			public String readFirstLine(Path path) throws IOException {
+				int now = active.incrementAndGet();
+				for (int max = maxActive.get(); now > max && !maxActive.compareAndSet(max, now); max = maxActive.get()) {
+				}
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				active.decrementAndGet();
+				return path.getFileName().toString();
+			}
+		};
+		try (FirstLineBatchReader reader = new FirstLineBatchReader(3, source)) {
+			FirstLineBatchReader.Result result = reader.readAll(paths);
+			assertEquals(200, result.getLines().size());
+			assertEquals("file7", result.getLines().get(paths.get(7)));
+		}
+		assertTrue("max active " + maxActive.get(), maxActive.get() <= 3);
+		assertTrue("max active " + maxActive.get(), maxActive.get() >= 1);
+	}
+
+	@Test public void testCloseFailsTheUnreadPaths() throws Exception {
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch never = new CountDownLatch(1);
+		final List<Path> paths = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			paths.add(folder.getRoot().toPath().resolve("file" + i));
+		}
+		final FirstLineBatchReader reader = new FirstLineBatchReader(1, new FirstLineBatchReader.LineSource() {
+			@Override
+			public String readFirstLine(Path path) throws IOException {
+				reading.countDown();
+				try {
+					never.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "line";
+			}
+		});
+		final FirstLineBatchReader.Result[] result = new FirstLineBatchReader.Result[1];
+		Thread caller = new Thread() {
+			@Override
+			public void run() {
+				try {
+					result[0] = reader.readAll(paths);
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+		caller.start();
+		reading.await();
+		reader.close();
+		caller.join(10000);
+		assertFalse(caller.isAlive());
+		assertEquals(1, result[0].getLines().size());
+		assertEquals("line", result[0].getLines().get(paths.get(0)));
+		assertEquals(9, result[0].getFailures().size());
+		for (Path path : paths.subList(1, 10)) {
+			assertTrue(result[0].getFailures().get(path) instanceof InterruptedIOException);
+		}
+	}
+
+	/** The second batch is still queued behind the first when the reader is closed. */
+	@Test public void testCloseWithQueuedBatch() throws Exception {
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch never = new CountDownLatch(1);
+		final FirstLineBatchReader reader = new FirstLineBatchReader(1, new FirstLineBatchReader.LineSource() {
+			@Override
+			public String readFirstLine(Path path) throws IOException {
+				reading.countDown();
+				try {
+					never.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "line";
+			}
+		});
+		final List<List<Path>> batches = new ArrayList<>();
+		final FirstLineBatchReader.Result[] results = new FirstLineBatchReader.Result[2];
+		Thread[] callers = new Thread[2];
+		for (int b = 0; b < callers.length; b++) {
+			List<Path> paths = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				paths.add(folder.getRoot().toPath().resolve("batch" + b + "-" + i));
+			}
+			batches.add(paths);
+			final int batch = b;
+			callers[b] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						results[batch] = reader.readAll(batches.get(batch));
+					} catch (InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			};
+		}
+		callers[0].start();
+		reading.await();
+		callers[1].start();
+		/* wait until the second batch's task is queued */
+		while (callers[1].getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+		reader.close();
+		for (Thread caller : callers) {
+			caller.join(10000);
+			assertFalse(caller.isAlive());
+		}
+		assertEquals(1, results[0].getLines().size());
+		assertEquals(4, results[0].getFailures().size());
+		assertTrue(results[1].getLines().isEmpty());
+		assertEquals(5, results[1].getFailures().size());
+		for (Path path : batches.get(1)) {
+			assertTrue(results[1].getFailures().get(path) instanceof InterruptedIOException);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FirstLineCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String name, String content) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(name);
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		return path;
+	}
+
+	@Test public void testHitAndMiss() throws IOException {
+		FirstLineCache cache = new FirstLineCache(10, StandardCharsets.UTF_8);
+		Path path = write("a", "header\nbody");
+		assertEquals("header", cache.get(path));
+		assertEquals("header", cache.get(path));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test public void testChangedFileIsReread() throws IOException {
+		FirstLineCache cache = new FirstLineCache(10, StandardCharsets.UTF_8);
+		Path path = write("a", "header\nbody");
+		assertEquals("header", cache.get(path));
+		FileTime modified = Files.getLastModifiedTime(path);
+
+		/* Same size and same time: the cache can not tell the difference. */
+		write("a", "HEADER\nbody");
+		Files.setLastModifiedTime(path, modified);
+		assertEquals("header", cache.get(path));
+
+		Files.setLastModifiedTime(path, FileTime.fromMillis(modified.toMillis() + 10000));
+		assertEquals("HEADER", cache.get(path));
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test public void testLeastRecentlyUsedIsEvicted() throws IOException {
+		FirstLineCache cache = new FirstLineCache(2, StandardCharsets.UTF_8);
+		Path a = write("a", "a");
+		Path b = write("b", "b");
+		Path c = write("c", "c");
+		cache.get(a);
+		cache.get(b);
+		cache.get(a);
+		cache.get(c);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		cache.get(a);
+		assertEquals(2, cache.getHitCount());
+		cache.get(b);
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test public void testConcurrentMissesShareOneRead() throws Exception {
+		final int threads = 8;
+		final AtomicInteger reads = new AtomicInteger();
+		final CountDownLatch reading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final FirstLineCache cache = new FirstLineCache(10, new FirstLineBatchReader.LineSource() {
+			@Override
+			public String readFirstLine(Path path) throws IOException {
+				reads.incrementAndGet();
+				reading.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return "header";
+			}
+		});
+		final Path path = write("a", "header\nbody");
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> callers = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						synchronized (callers) {
+							callers.add(Thread.currentThread());
+						}
+						start.await();
+						return cache.get(path);
+					}
+				}));
+			}
+			start.countDown();
+			assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+			/* Every caller has missed and is parked, either in the read or waiting for it. */
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (!allWaiting(callers, threads, cache)) {
+				assertTrue("callers did not reach the read", System.nanoTime() < deadline);
+				Thread.sleep(1);
+			}
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("header", result.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, reads.get());
+			assertEquals(threads, cache.getMissCount());
+			assertEquals("header", cache.get(path));
+			assertEquals(1, reads.get());
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static boolean allWaiting(List<Thread> callers, int threads, FirstLineCache cache) {
+		if (cache.getMissCount() < threads) {
+			return false;
+		}
+		synchronized (callers) {
+			for (Thread caller : callers) {
+				if (caller.getState() != Thread.State.WAITING) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Test(expected=IOException.class)
+	public void testMissingFile() throws IOException {
+		new FirstLineCache(2, StandardCharsets.UTF_8).get(folder.getRoot().toPath().resolve("missing"));
+	}
+}
@@ -0,0 +1,121 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FirstLineReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String content, Charset charset) throws IOException {
+		File file = folder.newFile();
+		Files.write(file.toPath(), content.getBytes(charset));
+		return file.toPath();
+	}
+
+	@Test public void testEmptyFile() throws IOException {
+		assertNull(FirstLineReader.readFirstLine(write("", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testEmptyFirstLine() throws IOException {
+		assertEquals("", FirstLineReader.readFirstLine(write("\nsecond", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testLineTerminators() throws IOException {
+		assertEquals("first", FirstLineReader.readFirstLine(write("first\nsecond", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+		assertEquals("first", FirstLineReader.readFirstLine(write("first\r\nsecond", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+		assertEquals("first", FirstLineReader.readFirstLine(write("first\rsecond", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testNoLineTerminator() throws IOException {
+		assertEquals("only", FirstLineReader.readFirstLine(write("only", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testMultiByteCharacters() throws IOException {
+		String line = "gr\u00fc\u00dfe \u20ac \ud83d\ude00";
+		assertEquals(line, FirstLineReader.readFirstLine(write(line + "\nx", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+		assertEquals("gr\u00fc\u00dfe", FirstLineReader.readFirstLine(write("gr\u00fc\u00dfe\n", StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1));
+	}
+
+	@Test public void testLineLongerThanOneBlock() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; sb.length() < FirstLineReader.BLOCK_SIZE * 5; i++) {
+			sb.append(i);
+		}
+		String line = sb.toString();
+		Path path = write(line + "\nsecond", StandardCharsets.UTF_8);
+		assertEquals(line, FirstLineReader.readFirstLine(path, StandardCharsets.UTF_8));
+		/* The grown buffer is reused by the next call and must not leak the previous contents. */
+		assertEquals("short", FirstLineReader.readFirstLine(write("short", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testSameAsBufferedReader() throws IOException {
+		Path path = write("a,b,c\r\n1,2,3\n", StandardCharsets.UTF_8);
+		TryWithResourcesExample example = new TryWithResourcesExample();
+		assertEquals(example.readFirstLineFromFile(path.toString()),
+				example.readFirstLineFromFile(path.toString(), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUtf16Rejected() throws IOException {
+		FirstLineReader.readFirstLine(write("x", StandardCharsets.UTF_8), StandardCharsets.UTF_16);
+	}
+
+	private static byte[] gzip(String content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		return bytes.toByteArray();
+	}
+
+	@Test public void testDecompressingPlainFile() throws IOException {
+		assertEquals("plain", FirstLineReader.readFirstLineDecompressing(write("plain\nx", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+		assertEquals("p", FirstLineReader.readFirstLineDecompressing(write("p", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+		assertNull(FirstLineReader.readFirstLineDecompressing(write("", StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testDecompressingStopsAtFirstLine() throws IOException {
+		StringBuilder sb = new StringBuilder("header\n");
+		Random random = new Random(1);
+		while (sb.length() < 1000000) {
+			sb.append(random.nextLong()).append('\n');
+		}
+		byte[] compressed = gzip(sb.toString());
+		/* Cut the stream short.  Reading the header must never get near the damage. */
+		Path path = folder.newFile().toPath();
+		Files.write(path, Arrays.copyOf(compressed, compressed.length / 2));
+		assertEquals("header", FirstLineReader.readFirstLineDecompressing(path, StandardCharsets.UTF_8));
+	}
+
+	@Test(expected=IOException.class)
+	public void testDecompressingZstdRejected() throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, new byte[] { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0, 0 });
+		FirstLineReader.readFirstLineDecompressing(path, StandardCharsets.UTF_8);
+	}
+
+	@Test public void testTransferFirstLine_Gzip() throws IOException {
+		Path from = folder.newFile().toPath();
+		Files.write(from, gzip("compressed\nrest"));
+		Path to = folder.newFile().toPath();
+		new TryWithResourcesExample().transferFirstLine_Gzip(from.toString(), to.toString(), StandardCharsets.UTF_8);
+		assertArrayEquals(gzip("compressed\n"), Files.readAllBytes(to));
+		assertEquals("compressed", FirstLineReader.readFirstLineDecompressing(to, StandardCharsets.UTF_8));
+	}
+}
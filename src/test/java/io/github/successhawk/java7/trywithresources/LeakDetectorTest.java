@@ -0,0 +1,73 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+public class LeakDetectorTest {
+
+	private static final Logger logger = Logger.getLogger(LeakDetectorTest.class);
+
+	/** Collects garbage until the detector reports a leak or we give up. */
+	private static long awaitLeaks(LeakDetector detector) throws InterruptedException {
+		for (int i = 0; i < 100 && detector.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+			detector.reportLeaks();
+		}
+		return detector.getLeakCount();
+	}
+
+	@Test public void testUnclosedReported() throws InterruptedException {
+		LeakDetector detector = new LeakDetector(LeakDetector.Mode.PARANOID, 1, logger);
+		assertNotNull(detector.track(new Object()));
+		assertEquals(1, detector.getTrackedCount());
+		assertEquals(1, awaitLeaks(detector));
+		assertEquals(0, detector.getTrackedCount());
+	}
+
+	@Test public void testClosedNotReported() throws InterruptedException {
+		LeakDetector detector = new LeakDetector(LeakDetector.Mode.PARANOID, 1, logger);
+		detector.track(new Object()).close();
+		assertEquals(0, detector.getTrackedCount());
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(0, detector.reportLeaks());
+		assertEquals(0, detector.getLeakCount());
+	}
+
+	@Test public void testLevels() {
+		LeakDetector disabled = new LeakDetector(LeakDetector.Mode.DISABLED, 1, logger);
+		assertNull(disabled.track(new Object()));
+
+		LeakDetector sampleAll = new LeakDetector(LeakDetector.Mode.SIMPLE, 1, logger);
+		assertNotNull(sampleAll.track(new Object()));
+
+		LeakDetector sampled = new LeakDetector(LeakDetector.Mode.SIMPLE, 1000, logger);
+		Object[] resources = new Object[10000];
+		int tracked = 0;
+		for (int i = 0; i < resources.length; i++) {
+			resources[i] = new Object();
+			LeakDetector.Tracker tracker = sampled.track(resources[i]);
+			if (tracker != null) {
+				tracked++;
+				tracker.close();
+			}
+		}
+		assertTrue("tracked " + tracked, tracked < 100);
+	}
+
+	@Test public void testDefaultDisabledUnlessOptedIn() {
+		if (System.getProperty(LeakDetector.MODE_PROPERTY) == null) {
+			assertEquals(LeakDetector.Mode.DISABLED, LeakDetector.DEFAULT.getMode());
+			assertNull(LeakDetector.DEFAULT.track(new Object()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class) public void testBadSamplingInterval() {
+		new LeakDetector(LeakDetector.Mode.SIMPLE, 0, logger);
+	}
+}
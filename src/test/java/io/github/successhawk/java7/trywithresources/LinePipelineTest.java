@@ -0,0 +1,86 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LinePipelineTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final LinePipeline.LineTransform DROP_COMMENTS = new LinePipeline.LineTransform() {
+		@Override
+		public String apply(String line) {
+			return line.startsWith("#") ? null : line;
+		}
+	};
+
+	private static final LinePipeline.LineTransform UPPER_CASE = new LinePipeline.LineTransform() {
+		@Override
+		public String apply(String line) {
+			return line.toUpperCase();
+		}
+	};
+
+	@Test public void testTransforms() throws IOException, InterruptedException {
+		Path from = folder.newFile().toPath();
+		Path to = folder.newFile().toPath();
+		List<String> lines = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			lines.add(i % 3 == 0 ? "# comment " + i : "line " + i);
+			if (i % 3 != 0) {
+				expected.add("LINE " + i);
+			}
+		}
+		Files.write(from, lines, StandardCharsets.UTF_8);
+
+		/* A tiny queue forces the reader to wait for the writer many times. */
+		long written = new LinePipeline(StandardCharsets.UTF_8, 1, 7, DROP_COMMENTS, UPPER_CASE).run(from, to);
+
+		assertEquals(expected.size(), written);
+		assertEquals(expected, Files.readAllLines(to, StandardCharsets.UTF_8));
+	}
+
+	@Test public void testEmptyFile() throws IOException, InterruptedException {
+		Path from = folder.newFile().toPath();
+		Path to = folder.newFile().toPath();
+		assertEquals(0, new TryWithResourcesExample().transferLines(from.toString(), to.toString(), StandardCharsets.UTF_8));
+		assertEquals(0, Files.size(to));
+	}
+
+	@Test public void testTransformFailure() throws IOException, InterruptedException {
+		Path from = folder.newFile().toPath();
+		Files.write(from, "ok\nboom\nnever\n".getBytes(StandardCharsets.UTF_8));
+		LinePipeline.LineTransform failing = new LinePipeline.LineTransform() {
+			@Override
+			public String apply(String line) {
+				if ("boom".equals(line)) {
+					throw new IllegalStateException(line);
+				}
+				return line;
+			}
+		};
+		try {
+			new LinePipeline(StandardCharsets.UTF_8, 1, 1, failing).run(from, folder.newFile().toPath());
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("boom", e.getMessage());
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testMissingSource() throws IOException, InterruptedException {
+		new LinePipeline(StandardCharsets.UTF_8, 1, 1).run(folder.getRoot().toPath().resolve("missing"), folder.newFile().toPath());
+	}
+}
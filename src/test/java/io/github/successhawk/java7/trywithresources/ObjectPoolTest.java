@@ -0,0 +1,159 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ObjectPoolTest {
+
+	/** A pooled object that knows whether it is leased. */
+	private static final class Pooled {
+		final AtomicBoolean leased = new AtomicBoolean();
+		final AtomicInteger resets = new AtomicInteger();
+	}
+
+	private static ObjectPool<Pooled> pool(int localCapacity, int sharedCapacity) {
+		return new ObjectPool<>(new ObjectPool.Factory<Pooled>() {
+			@Override
+			public Pooled create() {
+				return new Pooled();
+			}
+
+			@Override
+			public void reset(Pooled object) {
+				object.resets.incrementAndGet();
+			}
+		}, localCapacity, sharedCapacity);
+	}
+
+	@Test public void testReturnedOnClose() {
+		ObjectPool<Pooled> pool = pool(2, 0);
+		Pooled first;
+		try (ObjectPool.Lease<Pooled> lease = pool.acquire()) {
+			first = lease.get();
+		}
+		assertEquals(1, first.resets.get());
+		try (ObjectPool.Lease<Pooled> lease = pool.acquire()) {
+			assertSame(first, lease.get());
+		}
+		assertEquals(1, pool.getCreatedCount());
+	}
+
+	@Test public void testCloseTwice() {
+		ObjectPool<Pooled> pool = pool(2, 0);
+		ObjectPool.Lease<Pooled> lease = pool.acquire();
+		Pooled object = lease.get();
+		lease.close();
+		lease.close();
+		assertEquals(1, object.resets.get());
+		try {
+			lease.get();
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		ObjectPool.Lease<Pooled> again = pool.acquire();
+		ObjectPool.Lease<Pooled> other = pool.acquire();
+		assertNotSame(again.get(), other.get());
+	}
+
+	@Test public void testStaleCloseAfterReacquire() {
+		ObjectPool<Pooled> pool = pool(2, 0);
+		ObjectPool.Lease<Pooled> stale = pool.acquire();
+		Pooled object = stale.get();
+		stale.close();
+		try (ObjectPool.Lease<Pooled> current = pool.acquire()) {
+			assertSame(object, current.get());
+			/* the old holder closes again, for example at the end of its own try block */
+			stale.close();
+			assertEquals(1, object.resets.get());
+			assertSame(object, current.get());
+			ObjectPool.Lease<Pooled> other = pool.acquire();
+			assertNotSame(object, other.get());
+			other.close();
+		}
+		assertEquals(2, object.resets.get());
+	}
+
+	@Test public void testOverflowToShared() {
+		ObjectPool<Pooled> pool = pool(1, 2);
+		@SuppressWarnings("unchecked")
+		ObjectPool.Lease<Pooled>[] leases = (ObjectPool.Lease<Pooled>[]) new ObjectPool.Lease<?>[5];
+		for (int i = 0; i < leases.length; i++) {
+			leases[i] = pool.acquire();
+		}
+		for (ObjectPool.Lease<Pooled> lease : leases) {
+			lease.close();
+		}
+		/* one kept by this thread, two shared, two dropped */
+		assertEquals(2, pool.getSharedSize());
+		for (int i = 0; i < 3; i++) {
+			leases[i] = pool.acquire();
+		}
+		assertEquals(0, pool.getSharedSize());
+		assertEquals(5, pool.getCreatedCount());
+		pool.acquire();
+		assertEquals(6, pool.getCreatedCount());
+	}
+
+	/**
+	 * Threads lease several objects at a time and hand some to other threads to close, so objects move
+	 * through the shared stack.  No object may ever be leased twice at once.
+	 */
+	@Test public void testContention() throws InterruptedException {
+		final ObjectPool<Pooled> pool = pool(2, 1024);
+		final int threadCount = 8;
+		final int held = 4;
+		final int rounds = 20000;
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Queue<ObjectPool.Lease<Pooled>> handoff = new ConcurrentLinkedQueue<>();
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						@SuppressWarnings("unchecked")
+						ObjectPool.Lease<Pooled>[] leases = (ObjectPool.Lease<Pooled>[]) new ObjectPool.Lease<?>[held];
+						for (int round = 0; round < rounds && failure.get() == null; round++) {
+							for (int i = 0; i < held; i++) {
+								leases[i] = pool.acquire();
+								if (!leases[i].get().leased.compareAndSet(false, true)) {
+									throw new AssertionError("leased twice");
+								}
+							}
+							/* the first one is handed off, and we close one some thread handed off */
+							for (int i = 1; i < held; i++) {
+								leases[i].get().leased.set(false);
+								leases[i].close();
+							}
+							handoff.add(leases[0]);
+							ObjectPool.Lease<Pooled> passed = handoff.poll();
+							if (passed != null) {
+								passed.get().leased.set(false);
+								passed.close();
+							}
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(String.valueOf(failure.get()), failure.get());
+		assertTrue("created " + pool.getCreatedCount(), pool.getCreatedCount() < (long) threadCount * held * 4);
+	}
+}
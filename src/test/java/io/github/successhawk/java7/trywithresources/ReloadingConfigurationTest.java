@@ -0,0 +1,109 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReloadingConfigurationTest {
+
+	private static final long DEBOUNCE_MILLIS = 200;
+	private static final long TIMEOUT_MILLIS = 20000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = folder.getRoot().toPath().resolve("app.properties");
+		write("name=first\n");
+	}
+
+	private void write(String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private static void awaitReloads(ReloadingConfiguration configuration, long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (configuration.getReloadCount() < count) {
+			assertTrue("no reload within " + TIMEOUT_MILLIS + " ms", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static boolean isWatcherAlive() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("configuration-watcher-app.properties") && thread.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test public void testReloadAfterChange() throws IOException, InterruptedException {
+		try (ReloadingConfiguration configuration = new ReloadingConfiguration(file, Collections.singletonMap("other", "default"), DEBOUNCE_MILLIS)) {
+			assertEquals("first", configuration.get("name"));
+			assertEquals("default", configuration.get("other"));
+			assertEquals(1, configuration.getReloadCount());
+			write("name=second\nother=set\n");
+			awaitReloads(configuration, 2);
+			assertEquals("second", configuration.get("name"));
+			assertEquals("set", configuration.getSnapshot().get("other"));
+		}
+	}
+
+	@Test public void testBadFileKeepsPreviousSnapshot() throws IOException {
+		try (ReloadingConfiguration configuration = new ReloadingConfiguration(file, Collections.<String, String>emptyMap(), DEBOUNCE_MILLIS)) {
+			ReloadingConfiguration.Snapshot snapshot = configuration.getSnapshot();
+			/* A malformed unicode escape makes Properties.load throw. */
+			write("name=\\uXYZW\n");
+			assertFalse(configuration.reload());
+			assertSame(snapshot, configuration.getSnapshot());
+			Files.delete(file);
+			assertFalse(configuration.reload());
+			assertSame(snapshot, configuration.getSnapshot());
+			assertEquals("first", configuration.get("name"));
+			assertEquals(1, configuration.getReloadCount());
+		}
+	}
+
+	@Test public void testBurstOfWritesReloadsOnce() throws IOException, InterruptedException {
+		try (ReloadingConfiguration configuration = new ReloadingConfiguration(file, Collections.<String, String>emptyMap(), DEBOUNCE_MILLIS)) {
+			for (int i = 0; i < 5; i++) {
+				write("name=burst" + i + "\n");
+				/* Writes to other files in the directory do not delay the reload. */
+				Files.write(folder.getRoot().toPath().resolve("other" + i), new byte[] { 1 });
+				Thread.sleep(DEBOUNCE_MILLIS / 10);
+			}
+			awaitReloads(configuration, 2);
+			assertEquals("burst4", configuration.get("name"));
+			Thread.sleep(DEBOUNCE_MILLIS * 3);
+			assertEquals(2, configuration.getReloadCount());
+		}
+	}
+
+	@Test public void testCloseStopsWatcher() throws IOException, InterruptedException {
+		ReloadingConfiguration configuration = new ReloadingConfiguration(file, Collections.<String, String>emptyMap(), DEBOUNCE_MILLIS);
+		assertTrue(isWatcherAlive());
+		configuration.close();
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (isWatcherAlive()) {
+			assertTrue("watcher still running", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		write("name=after close\n");
+		Thread.sleep(DEBOUNCE_MILLIS * 3);
+		assertEquals("first", configuration.get("name"));
+		assertEquals(1, configuration.getReloadCount());
+	}
+}
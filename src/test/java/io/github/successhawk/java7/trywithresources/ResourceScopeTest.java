@@ -0,0 +1,99 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import io.github.successhawk.java7.trywithresources.AutoCloseableTest.AutoCloseableWithoutCheckedExceptions;
+import io.github.successhawk.java7.trywithresources.AutoCloseableTest.Behavior;
+
+/**
+ * The same execution flow as the nested try blocks in {@link AutoCloseableTest}, with one scope.
+ *
+ * @author nwh02
+ *
+ */
+public class ResourceScopeTest {
+
+	private static final Logger logger = Logger.getLogger(ResourceScopeTest.class);
+
+	@Test
+	@SuppressWarnings("try")
+	public void test_scope_tryUncheckedException()
+	{
+		/* Same as AutoCloseableTest.test_nestedTryWithResources_tryUncheckedException, without the nesting. */
+		AutoCloseableWithoutCheckedExceptions outerResourceRef = new AutoCloseableWithoutCheckedExceptions(Behavior.NoException, Behavior.UncheckedException);
+		AutoCloseableWithoutCheckedExceptions innerResourceRef = new AutoCloseableWithoutCheckedExceptions(Behavior.NoException, Behavior.UncheckedException);
+		boolean expectedOccurred = false;
+		try (ResourceScope scope = new ResourceScope()) {
+			scope.register(outerResourceRef);
+			scope.register(innerResourceRef);
+			throw new RuntimeException("try failed");
+		} catch (Exception e) {
+			logger.info("expected " + e);
+			assertEquals("try failed", e.getMessage());
+			assertEquals("expect 1 suppressed exception, from the scope, which holds the 2nd close failure.", 1, e.getSuppressed().length);
+			assertEquals("expect the inner resource to be closed first.", 1, e.getSuppressed()[0].getSuppressed().length);
+			assertTrue(outerResourceRef.isClosed());
+			assertTrue(innerResourceRef.isClosed());
+			expectedOccurred = true;
+		}
+		assertTrue(expectedOccurred);
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void test_scope_closesInReverseOrder() throws Exception
+	{
+		final List<Integer> closed = new ArrayList<>();
+		try (ResourceScope scope = new ResourceScope(1, 0)) {
+			for (int i = 0; i < 200; i++) {
+				final int index = i;
+				scope.register(new AutoCloseable() {
+					@Override
+					public void close() {
+						closed.add(index);
+					}
+				});
+			}
+			scope.register(null);
+			assertEquals(200, scope.size());
+		}
+		assertEquals(200, closed.size());
+		assertEquals(Integer.valueOf(199), closed.get(0));
+		assertEquals(Integer.valueOf(0), closed.get(199));
+	}
+
+	@Test
+	public void test_scope_suppressedCapped()
+	{
+		ResourceScope scope = new ResourceScope(4, 3);
+		for (int i = 0; i < 10; i++) {
+			scope.register(new AutoCloseableWithoutCheckedExceptions(Behavior.NoException, Behavior.UncheckedException));
+		}
+		try {
+			scope.close();
+			fail();
+		} catch (Exception e) {
+			assertEquals(3, e.getSuppressed().length);
+		}
+		assertEquals(0, scope.size());
+	}
+
+	@Test
+	public void test_scope_reusable() throws Exception
+	{
+		ResourceScope scope = new ResourceScope();
+		AutoCloseableWithoutCheckedExceptions first = scope.register(new AutoCloseableWithoutCheckedExceptions());
+		scope.close();
+		assertTrue(first.isClosed());
+		AutoCloseableWithoutCheckedExceptions second = scope.register(new AutoCloseableWithoutCheckedExceptions());
+		assertEquals(1, scope.size());
+		scope.close();
+		assertTrue(second.isClosed());
+	}
+}
@@ -0,0 +1,180 @@
+package io.github.successhawk.java7.trywithresources;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TryWithResourcesExampleTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final TryWithResourcesExample example = new TryWithResourcesExample();
+	private Path from;
+	private Path to;
+
+	@Before
+	public void setUp() throws IOException {
+		from = folder.newFile("from.txt").toPath();
+		to = folder.getRoot().toPath().resolve("to.txt");
+		write(from, "first\r\nsecond\rthird\nfourth");
+	}
+
+	private static void write(Path path, String content) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+
+	@Test public void testTransferFirstLine_Java7() throws IOException {
+		example.transferFirstLine_Java7(from.toString(), to.toString());
+		assertEquals("first\n", read(to));
+	}
+
+	@Test public void testTransferFirstLine_Pooled() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			example.transferFirstLine_Pooled(from.toString(), to.toString(), StandardCharsets.UTF_8);
+			assertEquals("first\n", read(to));
+		}
+		StringBuilder longLine = new StringBuilder();
+		while (longLine.length() < 3 * IoPools.BUFFER_SIZE) {
+			longLine.append("\u00e9t\u00e9 ");
+		}
+		write(from, longLine + "\nsecond");
+		example.transferFirstLine_Pooled(from.toString(), to.toString(), StandardCharsets.UTF_8);
+		assertEquals(longLine + "\n", read(to));
+		write(from, "");
+		example.transferFirstLine_Pooled(from.toString(), to.toString(), StandardCharsets.UTF_8);
+		assertEquals("\n", read(to));
+	}
+
+	@Test public void testTransferFirstLine_Durable() throws IOException, InterruptedException {
+		final Path[] targets = new Path[20];
+		final IOException[] failures = new IOException[targets.length];
+		Thread[] threads = new Thread[targets.length];
+		try (final GroupCommitter committer = new GroupCommitter(5, TimeUnit.MILLISECONDS, 8)) {
+			for (int i = 0; i < threads.length; i++) {
+				final int index = i;
+				targets[i] = folder.getRoot().toPath().resolve("durable" + i + ".txt");
+				threads[i] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							example.transferFirstLine_Durable(from.toString(), targets[index].toString(), committer);
+						} catch (IOException e) {
+							failures[index] = e;
+						}
+					}
+				};
+				threads[i].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+		for (int i = 0; i < targets.length; i++) {
+			assertNull(failures[i]);
+			assertEquals("first\n", read(targets[i]));
+		}
+		/* Only the targets and the source are left; no temporary files. */
+		assertEquals(targets.length + 1, folder.getRoot().list().length);
+	}
+
+	@Test public void testTransferFirstLine_DurablePermissions() throws IOException {
+		assumeTrue(Files.getFileStore(folder.getRoot().toPath()).supportsFileAttributeView(PosixFileAttributeView.class));
+		try (GroupCommitter committer = new GroupCommitter(1, TimeUnit.MILLISECONDS, 1)) {
+			/* An existing target keeps its permissions. */
+			write(to, "old");
+			Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+			Files.setPosixFilePermissions(to, permissions);
+			example.transferFirstLine_Durable(from.toString(), to.toString(), committer);
+			assertEquals("first\n", read(to));
+			assertEquals(permissions, Files.getPosixFilePermissions(to));
+
+			/* A new target gets the same permissions as any other new file, not the owner only ones of a temp file. */
+			Path created = folder.newFile("created.txt").toPath();
+			Path target = folder.getRoot().toPath().resolve("new.txt");
+			example.transferFirstLine_Durable(from.toString(), target.toString(), committer);
+			assertEquals(Files.getPosixFilePermissions(created), Files.getPosixFilePermissions(target));
+		}
+	}
+
+	@Test public void testTransferFile() throws IOException {
+		write(to, "previous content that is longer than the source file");
+		assertEquals(Files.size(from), example.transferFile(from.toString(), to.toString()));
+		assertEquals(read(from), read(to));
+	}
+
+	@Test public void testTransferFirstLines() throws IOException {
+		assertEquals(0, example.transferFirstLines(from.toString(), to.toString(), 0));
+		assertEquals("", read(to));
+		example.transferFirstLines(from.toString(), to.toString(), 1);
+		assertEquals("first\r\n", read(to));
+		example.transferFirstLines(from.toString(), to.toString(), 2);
+		assertEquals("first\r\nsecond\r", read(to));
+		example.transferFirstLines(from.toString(), to.toString(), 3);
+		assertEquals("first\r\nsecond\rthird\n", read(to));
+		example.transferFirstLines(from.toString(), to.toString(), 10);
+		assertEquals(read(from), read(to));
+	}
+
+	@Test public void testTransferRange() throws IOException {
+		assertEquals(6, example.transferRange(from.toString(), to.toString(), 7, 6));
+		assertEquals("second", read(to));
+		assertEquals(2, example.transferRange(from.toString(), to.toString(), Files.size(from) - 2, 100));
+		assertEquals("th", read(to));
+		assertEquals(0, example.transferRange(from.toString(), to.toString(), 1000, 10));
+		assertEquals("", read(to));
+	}
+
+	@Test(expected=IOException.class)
+	public void testTransferFile_missingSource() throws IOException {
+		example.transferFile(folder.getRoot().toPath().resolve("missing").toString(), to.toString());
+	}
+
+	@Test public void testTransferFileWithChecksum() throws IOException {
+		Crc32c checksum = new Crc32c();
+		assertEquals(Files.size(from), example.transferFile(from.toString(), to.toString(), checksum));
+		assertEquals(read(from), read(to));
+		Crc32c expected = new Crc32c();
+		byte[] bytes = Files.readAllBytes(from);
+		expected.update(bytes, 0, bytes.length);
+		assertEquals(expected.getValue(), checksum.getValue());
+
+		example.transferFileVerified(from.toString(), to.toString(), expected.getValue());
+		assertEquals(read(from), read(to));
+	}
+
+	@Test public void testTransferRangeWithChecksum() throws IOException {
+		Crc32c checksum = new Crc32c();
+		assertEquals(6, example.transferRange(from.toString(), to.toString(), 7, 6, checksum));
+		Crc32c expected = new Crc32c();
+		expected.update("second".getBytes(StandardCharsets.UTF_8), 0, 6);
+		assertEquals(expected.getValue(), checksum.getValue());
+	}
+
+	@Test public void testTransferFileVerified_mismatch() throws IOException {
+		try {
+			example.transferFileVerified(from.toString(), to.toString(), 0);
+			fail();
+		} catch (IOException e) {
+			assertFalse(Files.exists(to));
+		}
+	}
+}